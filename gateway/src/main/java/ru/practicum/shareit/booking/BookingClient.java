@@ -7,10 +7,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -31,30 +34,34 @@ public class BookingClient extends BaseClient {
         return post("", userId, booking);
     }
 
+    public ResponseEntity<Object> createBookings(Long userId, List<BookingInDto> bookings) {
+        return post("/batch", userId, bookings);
+    }
+
     public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
     public ResponseEntity<Object> getUserBookings(Long userId,
                                                   BookingStateFilter state,
-                                                  Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+                                                  Integer from, Integer size,
+                                                  String cursor) {
+        return get(withPageParams("", cursor), userId, pageParameters(state, from, size, cursor));
     }
 
     public ResponseEntity<Object> getOwnerBookings(Long userId,
                                                    BookingStateFilter state,
-                                                   Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+                                                   Integer from, Integer size,
+                                                   String cursor) {
+        return get(withPageParams("/owner", cursor), userId, pageParameters(state, from, size, cursor));
+    }
+
+    public ResponseEntity<Object> getUserBookingSummary(Long userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getOwnerBookingSummary(Long userId) {
+        return get("/owner/summary", userId);
     }
 
     public ResponseEntity<Object> setBookingApproveStatus(Long userId, Long bookingId, Boolean approved) {
@@ -63,4 +70,26 @@ public class BookingClient extends BaseClient {
         );
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
+
+    public ResponseEntity<Object> setBookingsApproveStatus(Long userId, List<BookingDecisionDto> decisions) {
+        return patch("", userId, decisions);
+    }
+
+    private static String withPageParams(String path, String cursor) {
+        String query = "?state={state}&from={from}&size={size}";
+        return cursor == null ? path + query : path + query + "&cursor={cursor}";
+    }
+
+    private static Map<String, Object> pageParameters(BookingStateFilter state,
+                                                      Integer from, Integer size,
+                                                      String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
+    }
 }
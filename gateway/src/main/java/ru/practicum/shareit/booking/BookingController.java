@@ -5,13 +5,21 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
 import ru.practicum.shareit.error.InvalidRequestParamsException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
@@ -19,7 +27,10 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class BookingController {
 
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final BookingClient bookingClient;
+    private final BookingStreamClient bookingStreamClient;
 
     @PostMapping
     public ResponseEntity<Object> createBooking(
@@ -32,6 +43,22 @@ public class BookingController {
         return bookingClient.createBooking(userId, booking);
     }
 
+    @PostMapping(value = "/batch")
+    public ResponseEntity<Object> createBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestBody
+            @NotEmpty(message = "Список бронирований не должен быть пустым")
+            @Size(max = MAX_BATCH_SIZE, message = "За один запрос можно создать не больше {max} бронирований")
+            List<@Valid BookingInDto> bookings
+    ) {
+        for (BookingInDto booking : bookings) {
+            if (!booking.getEnd().isAfter(booking.getStart())) {
+                throw new InvalidRequestParamsException("дата окончания бронирования должна быть после даты начала");
+            }
+        }
+        return bookingClient.createBookings(userId, bookings);
+    }
+
     @GetMapping(value = "/{bookingId}")
     public ResponseEntity<Object> getBookingById(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -45,7 +72,8 @@ public class BookingController {
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @Positive @RequestParam(name = "size", defaultValue = "20") Integer size
+            @Positive @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         return bookingClient.getUserBookings(
                 userId,
@@ -53,7 +81,8 @@ public class BookingController {
                         () -> new InvalidRequestParamsException(String.format("Unknown state: %s", state))
                 ),
                 from,
-                size
+                size,
+                cursor
         );
     }
 
@@ -62,7 +91,8 @@ public class BookingController {
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @Positive @RequestParam(name = "size", defaultValue = "20") Integer size
+            @Positive @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
         return bookingClient.getOwnerBookings(
                 userId,
@@ -70,10 +100,49 @@ public class BookingController {
                         () -> new InvalidRequestParamsException(String.format("Unknown state: %s", state))
                 ),
                 from,
-                size
+                size,
+                cursor
         );
     }
 
+    @GetMapping(value = "/summary")
+    public ResponseEntity<Object> getUserBookingSummary(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId
+    ) {
+        return bookingClient.getUserBookingSummary(userId);
+    }
+
+    @GetMapping(value = "/owner/summary")
+    public ResponseEntity<Object> getOwnerBookingSummary(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId
+    ) {
+        return bookingClient.getOwnerBookingSummary(userId);
+    }
+
+    @GetMapping(value = "/owner/stream")
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> streamOwnerBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return bookingStreamClient.streamOwnerBookings(userId, lastEventId);
+    }
+
+    @GetMapping(value = "/export")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportUserBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "format", defaultValue = "NDJSON") String format
+    ) {
+        return bookingStreamClient.exportBookings("/export", userId, toExportFormat(format).name());
+    }
+
+    @GetMapping(value = "/owner/export")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportOwnerBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "format", defaultValue = "NDJSON") String format
+    ) {
+        return bookingStreamClient.exportBookings("/owner/export", userId, toExportFormat(format).name());
+    }
+
     @PatchMapping(value = "/{bookingId}")
     public ResponseEntity<Object> setBookingApproveStatus(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -82,4 +151,21 @@ public class BookingController {
     ) {
         return bookingClient.setBookingApproveStatus(userId, bookingId, approved);
     }
+
+    @PatchMapping
+    public ResponseEntity<Object> setBookingsApproveStatus(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestBody
+            @NotEmpty(message = "Список решений не должен быть пустым")
+            @Size(max = MAX_BATCH_SIZE, message = "За один запрос можно принять не больше {max} решений")
+            List<@Valid BookingDecisionDto> decisions
+    ) {
+        return bookingClient.setBookingsApproveStatus(userId, decisions);
+    }
+
+    private static BookingExportFormat toExportFormat(String format) {
+        return BookingExportFormat.fromString(format).orElseThrow(
+                () -> new InvalidRequestParamsException(String.format("Unknown format: %s", format))
+        );
+    }
 }
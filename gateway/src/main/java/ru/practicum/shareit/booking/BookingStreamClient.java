@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/*
+    Проксирует поток событий о бронированиях с сервера построчно, без буферизации.
+    RestTemplate читает ответ целиком и держит поток на все время запроса, поэтому здесь
+    используется асинхронный java.net.http.HttpClient: пока сервер молчит, соединение
+    не занимает ни потока клиента, ни потока сервлета.
+    Выгрузка истории бронирований передается тем же клиентом как есть, блоками по мере чтения.
+ */
+@Service
+public class BookingStreamClient {
+    private static final String API_PREFIX = "/bookings";
+    private static final MediaType EVENT_STREAM = new MediaType(MediaType.TEXT_EVENT_STREAM, StandardCharsets.UTF_8);
+
+    private final HttpClient httpClient;
+    private final String serverUrl;
+    private final URI ownerStreamUri;
+    private final long timeout;
+
+    @Autowired
+    public BookingStreamClient(@Value("${shareit-server.url}") String serverUrl,
+                               @Value("${shareit-server.stream-timeout:3600000}") long timeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.serverUrl = serverUrl;
+        this.ownerStreamUri = URI.create(serverUrl + API_PREFIX + "/owner/stream");
+        this.timeout = timeout;
+    }
+
+    // ответ возвращается, как только от сервера пришли заголовки; тело передается по мере поступления
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> streamOwnerBookings(Long userId,
+                                                                                     String lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(ownerStreamUri)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                // ошибки сервер возвращает в JSON
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE)
+                .GET();
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+
+        CompletableFuture<ResponseEntity<ResponseBodyEmitter>> result = new CompletableFuture<>();
+        httpClient.sendAsync(request.build(), responseInfo -> {
+            ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(responseInfo.statusCode());
+            responseInfo.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                    .ifPresent(contentType -> response.header(HttpHeaders.CONTENT_TYPE, contentType));
+            result.complete(response.body(emitter));
+            return HttpResponse.BodySubscribers.fromLineSubscriber(new LineForwarder(emitter));
+        }).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    // path - "/export" или "/owner/export"; ошибки сервера передаются клиенту с исходным статусом
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportBookings(String path, Long userId,
+                                                                                   String format) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serverUrl + API_PREFIX + path + "?format=" + format))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(serverResponse -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.status(serverResponse.statusCode());
+                    serverResponse.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                            .ifPresent(contentType -> response.header(HttpHeaders.CONTENT_TYPE, contentType));
+                    serverResponse.headers().firstValue(HttpHeaders.CONTENT_DISPOSITION)
+                            .ifPresent(disposition -> response.header(HttpHeaders.CONTENT_DISPOSITION, disposition));
+                    return response.body(out -> {
+                        try (InputStream in = serverResponse.body()) {
+                            in.transferTo(out);
+                        }
+                    });
+                });
+    }
+
+    // запрашивает следующую строку у сервера только после того, как предыдущая отправлена клиенту
+    private static final class LineForwarder implements Flow.Subscriber<String> {
+        private final ResponseBodyEmitter emitter;
+        private Flow.Subscription subscription;
+
+        private LineForwarder(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            emitter.onCompletion(subscription::cancel);
+            emitter.onTimeout(subscription::cancel);
+            emitter.onError(error -> subscription.cancel());
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(String line) {
+            try {
+                emitter.send(line + "\n", EVENT_STREAM);
+                subscription.request(1);
+            } catch (IOException | IllegalStateException e) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            emitter.complete();
+        }
+
+        @Override
+        public void onComplete() {
+            emitter.complete();
+        }
+    }
+}
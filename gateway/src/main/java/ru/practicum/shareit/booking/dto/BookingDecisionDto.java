@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@AllArgsConstructor
+public class BookingDecisionDto {
+    @NotNull(message = "ID бронирования должен быть задан")
+    private Long bookingId;
+    @NotNull(message = "Решение по бронированию должно быть задано")
+    private Boolean approved;
+}
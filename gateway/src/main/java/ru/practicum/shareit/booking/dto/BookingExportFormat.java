@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.util.Optional;
+
+public enum BookingExportFormat {
+    NDJSON, // по одному JSON-объекту в строке
+    CSV;
+
+    public static Optional<BookingExportFormat> fromString(String string) {
+        for (BookingExportFormat format : BookingExportFormat.values()) {
+            if (format.name().equalsIgnoreCase(string))
+                return Optional.of(format);
+        }
+        return Optional.empty();
+    }
+}
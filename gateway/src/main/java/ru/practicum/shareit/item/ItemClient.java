@@ -11,6 +11,8 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentInDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -48,6 +50,32 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
+    public ResponseEntity<Object> getItemComments(Long userId, Long itemId, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("size", size);
+        String path = "/" + itemId + "/comments?size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        return get(path, userId, parameters);
+    }
+
+    public ResponseEntity<Object> getItemAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        // границы необязательны: отсутствующую сервер выбирает сам
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder path = new StringBuilder("/" + itemId + "/availability");
+        if (from != null) {
+            parameters.put("from", from);
+            path.append("?from={from}");
+        }
+        if (to != null) {
+            parameters.put("to", to);
+            path.append(from != null ? "&" : "?").append("to={to}");
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
     public ResponseEntity<Object> searchItemByName(Long userId, String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
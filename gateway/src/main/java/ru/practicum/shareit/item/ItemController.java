@@ -1,16 +1,19 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.error.InvalidRequestParamsException;
 import ru.practicum.shareit.item.dto.CommentInDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @RequiredArgsConstructor
 @Controller
@@ -18,6 +21,8 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+
     private final ItemClient itemClient;
 
     @PostMapping
@@ -54,6 +59,38 @@ public class ItemController {
         return itemClient.getItemById(userId, itemId);
     }
 
+    @GetMapping(value = "/{itemId}/comments")
+    public ResponseEntity<Object> getItemComments(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @Positive @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        return itemClient.getItemComments(userId, itemId, size, cursor);
+    }
+
+    @GetMapping(value = "/{itemId}/availability")
+    public ResponseEntity<Object> getItemAvailability(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        if (from != null && to != null) {
+            if (!to.isAfter(from)) {
+                throw new InvalidRequestParamsException("конец периода должен быть после его начала");
+            }
+            if (to.isAfter(from.plusDays(MAX_AVAILABILITY_DAYS))) {
+                throw new InvalidRequestParamsException(
+                        String.format("период не может быть длиннее %d дней", MAX_AVAILABILITY_DAYS)
+                );
+            }
+        }
+        return itemClient.getItemAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping(value = "/search")
     public ResponseEntity<Object> searchItemByName(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+/*
+    Advisory-блокировки Postgres для фоновых заданий, которые на нескольких узлах должен
+    выполнять только один. Блокировка снимается при завершении транзакции.
+ */
+public interface AdvisoryLockRepository {
+
+    // false - блокировку держит другая транзакция, в том числе на другом узле
+    boolean tryAdvisoryTransactionLock(long key);
+}
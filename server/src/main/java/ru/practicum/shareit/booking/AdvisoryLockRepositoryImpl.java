@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+
+@RequiredArgsConstructor
+public class AdvisoryLockRepositoryImpl implements AdvisoryLockRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public boolean tryAdvisoryTransactionLock(long key) {
+        return (Boolean) entityManager.createNativeQuery("select pg_try_advisory_xact_lock(?1)")
+                .setParameter(1, key)
+                .getSingleResult();
+    }
+}
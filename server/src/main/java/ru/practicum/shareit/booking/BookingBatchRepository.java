@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+/*
+    Пакетная вставка бронирований. id бронирований генерирует база (IDENTITY), поэтому Hibernate
+    выполняет каждую вставку отдельным запросом; здесь строки уходят одним JDBC-пакетом.
+    Сгенерированные id база возвращает вместе с пакетом, они проставляются переданным бронированиям.
+ */
+public interface BookingBatchRepository {
+
+    void insertAll(List<Booking> bookings);
+}
@@ -1,20 +1,35 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.error.InvalidRequestParamsException;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
+    private final BookingStreamService bookingStreamService;
+    private final BookingExportService bookingExportService;
 
     @PostMapping
     public BookingDto createBooking(
@@ -24,6 +39,14 @@ public class BookingController {
         return bookingService.createBooking(userId, booking);
     }
 
+    @PostMapping(value = "/batch")
+    public List<BookingDto> createBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestBody List<BookingInDto> bookings
+    ) {
+        return bookingService.createBookings(userId, bookings);
+    }
+
     @GetMapping(value = "/{bookingId}")
     public BookingDto getBookingById(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -33,41 +56,83 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getUserBookings(
+    public ResponseEntity<List<BookingDto>> getUserBookings(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "20") Integer size
+            @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return bookingService.getUserBookings(
-                userId,
-                BookingStateFilter.fromString(state).orElseThrow(
-                        () -> new InvalidRequestParamsException(String.format("Unknown state: %s", state))
-                ),
-                from,
+        BookingStateFilter stateFilter = BookingStateFilter.fromString(state).orElseThrow(
+                () -> new InvalidRequestParamsException(String.format("Unknown state: %s", state))
+        );
+        return withNextCursor(
+                cursor == null
+                        ? bookingService.getUserBookings(userId, stateFilter, from, size)
+                        : bookingService.getUserBookings(userId, stateFilter, BookingCursor.decode(cursor), size),
                 size
         );
     }
 
     @GetMapping(value = "/owner")
-    public List<BookingDto> getOwnerBookings(
+    public ResponseEntity<List<BookingDto>> getOwnerBookings(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
             @RequestParam(value = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "20") Integer size
+            @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return bookingService.getOwnerBookings(
-                userId,
-                BookingStateFilter.fromString(state).orElseThrow(
-                        () -> new InvalidRequestParamsException(
-                                String.format("Unknown state: %s", state)
-                        )
-                ),
-                from,
+        BookingStateFilter stateFilter = BookingStateFilter.fromString(state).orElseThrow(
+                () -> new InvalidRequestParamsException(
+                        String.format("Unknown state: %s", state)
+                )
+        );
+        return withNextCursor(
+                cursor == null
+                        ? bookingService.getOwnerBookings(userId, stateFilter, from, size)
+                        : bookingService.getOwnerBookings(userId, stateFilter, BookingCursor.decode(cursor), size),
                 size
         );
     }
 
+    @GetMapping(value = "/summary")
+    public Map<BookingStateFilter, Long> getUserBookingSummary(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId
+    ) {
+        return bookingService.getUserBookingSummary(userId);
+    }
+
+    @GetMapping(value = "/owner/summary")
+    public Map<BookingStateFilter, Long> getOwnerBookingSummary(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId
+    ) {
+        return bookingService.getOwnerBookingSummary(userId);
+    }
+
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "format", defaultValue = "NDJSON") String format
+    ) {
+        return export(userId, BookingRole.BOOKER, format);
+    }
+
+    @GetMapping(value = "/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(value = "format", defaultValue = "NDJSON") String format
+    ) {
+        return export(userId, BookingRole.OWNER, format);
+    }
+
+    @GetMapping(value = "/owner/stream")
+    public SseEmitter streamOwnerBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return bookingStreamService.subscribe(userId, lastEventId);
+    }
+
     @PatchMapping(value = "/{bookingId}")
     public BookingDto setBookingApproveStatus(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -76,4 +141,36 @@ public class BookingController {
     ) {
         return bookingService.setBookingApproveStatus(userId, bookingId, approved);
     }
+
+    @PatchMapping
+    public List<BookingDecisionResultDto> setBookingsApproveStatus(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestBody List<BookingDecisionDto> decisions
+    ) {
+        return bookingService.setBookingsApproveStatus(userId, decisions);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Long userId, BookingRole role, String format) {
+        BookingExportFormat exportFormat = BookingExportFormat.fromString(format).orElseThrow(
+                () -> new InvalidRequestParamsException(String.format("Unknown format: %s", format))
+        );
+        StreamingResponseBody body = bookingExportService.exportBookings(userId, role, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /*
+        Если страница заполнена полностью, в заголовке X-Next-Cursor возвращается курсор,
+        по которому можно запросить следующую страницу без OFFSET.
+     */
+    private static ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, Integer size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.after(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
+    }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.model.BookingCounters;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+import java.util.Collection;
+
+/*
+    Блокировки строк счетчиков. Недостающие строки сначала вставляются неподсчитанными
+    (INSERT ... ON CONFLICT DO NOTHING), поэтому заблокировать есть что, даже если счетчики
+    пользователя еще ни разу не читались. Строки вставляются и блокируются в порядке
+    id пользователя и роли, поэтому транзакции с общими пользователями не ждут друг друга по кругу.
+ */
+public interface BookingCountersLockRepository {
+
+    // перед изменением счетчиков арендаторов и владельцев
+    void lockForUpdate(Collection<Long> bookerIds, Collection<Long> ownerIds);
+
+    // перед пересчетом: возвращает заблокированную строку с последними зафиксированными значениями
+    BookingCounters lockForRecount(Long userId, BookingRole role);
+}
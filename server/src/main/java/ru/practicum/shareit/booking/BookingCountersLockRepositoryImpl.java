@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingCounters;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookingCountersLockRepositoryImpl implements BookingCountersLockRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public void lockForUpdate(Collection<Long> bookerIds, Collection<Long> ownerIds) {
+        List<Map.Entry<Long, BookingRole>> keys = Stream.concat(
+                        bookerIds.stream().distinct().map(userId -> Map.entry(userId, BookingRole.BOOKER)),
+                        ownerIds.stream().distinct().map(userId -> Map.entry(userId, BookingRole.OWNER)))
+                .sorted(Map.Entry.<Long, BookingRole>comparingByKey()
+                        .thenComparing(key -> key.getValue().name()))
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) return;
+
+        String rows = keys.stream()
+                .map(key -> "(?, ?, 0, 0, 0, 0, 0)")
+                .collect(Collectors.joining(", "));
+        bind(entityManager.createNativeQuery(
+                "INSERT INTO booking_counters (user_id, role, total, waiting, rejected, started, ended) " +
+                "VALUES " + rows + " ON CONFLICT DO NOTHING"), keys)
+                .executeUpdate();
+
+        String pairs = keys.stream()
+                .map(key -> "(?, ?)")
+                .collect(Collectors.joining(", "));
+        bind(entityManager.createNativeQuery(
+                "SELECT id FROM booking_counters WHERE (user_id, role) IN (" + pairs + ") " +
+                "ORDER BY user_id, role FOR UPDATE"), keys)
+                .getResultList();
+    }
+
+    @Override
+    public BookingCounters lockForRecount(Long userId, BookingRole role) {
+        lockForUpdate(
+                role == BookingRole.BOOKER ? List.of(userId) : List.of(),
+                role == BookingRole.OWNER ? List.of(userId) : List.of()
+        );
+        BookingCounters counters = entityManager.createQuery(
+                        "select counters from BookingCounters counters " +
+                        "where counters.userId = ?1 and counters.role = ?2", BookingCounters.class)
+                .setParameter(1, userId)
+                .setParameter(2, role)
+                .getSingleResult();
+        // строка могла попасть в контекст до блокировки и с тех пор измениться
+        entityManager.refresh(counters);
+        return counters;
+    }
+
+    private static Query bind(Query query, List<Map.Entry<Long, BookingRole>> keys) {
+        int position = 1;
+        for (Map.Entry<Long, BookingRole> key : keys) {
+            query.setParameter(position++, key.getKey());
+            query.setParameter(position++, key.getValue().name());
+        }
+        return query;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.BookingCounters;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/*
+    Счетчики меняются одним UPDATE, без чтения строки: так параллельные бронирования
+    не теряют приращения. Чтобы пересчет не пропустил еще не зафиксированное бронирование,
+    и изменения, и пересчет сначала блокируют строки счетчиков (BookingCountersLockRepository):
+    пересчет дожидается изменяющих транзакций, а изменения, начатые после него, применяются
+    к уже пересчитанной строке. Сбросить счетчики - значит отметить строку неподсчитанной.
+ */
+public interface BookingCountersRepository extends JpaRepository<BookingCounters, Long>, BookingCountersLockRepository {
+    Optional<BookingCounters> findByUserIdAndRole(Long userId, BookingRole role);
+
+    @Modifying
+    @Query("update BookingCounters counters " +
+           "set counters.total = counters.total + 1, " +
+           "counters.waiting = counters.waiting + 1, " +
+           "counters.started = counters.started + (case when counters.countedAt >= ?3 then 1 else 0 end), " +
+           "counters.ended = counters.ended + (case when counters.countedAt > ?4 then 1 else 0 end) " +
+           "where counters.userId = ?1 and counters.role = ?2")
+    void addWaitingBooking(Long userId, BookingRole role, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query("update BookingCounters counters " +
+           "set counters.waiting = counters.waiting + ?3, " +
+           "counters.rejected = counters.rejected + ?4 " +
+           "where counters.userId = ?1 and counters.role = ?2")
+    void changeStatusCounters(Long userId, BookingRole role, long waitingDelta, long rejectedDelta);
+
+    @Modifying
+    @Query("update BookingCounters counters set counters.countedAt = null " +
+           "where counters.userId = ?1 and counters.role = ?2")
+    void reset(Long userId, BookingRole role);
+
+    @Modifying
+    @Query("update BookingCounters counters set counters.countedAt = null " +
+           "where counters.userId in ?1 and counters.role = ?2")
+    void resetAll(Collection<Long> userIds, BookingRole role);
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+/*
+    Отклоняет бронирования, которые так и остались в статусе WAITING после наступления даты начала.
+    Такие бронирования уже не могут состояться, но попадают в списки ожидающих и в проверки пересечений.
+ */
+public interface BookingExpiryService {
+
+    // возвращает число отклоненных бронирований
+    int expireStale();
+}
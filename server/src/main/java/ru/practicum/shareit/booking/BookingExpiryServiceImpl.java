@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.ConcurrentUpdateException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+    Бронирования отклоняются пакетами, каждый в своей транзакции: пакет читается одним запросом
+    и меняется одним UPDATE, поэтому блокировки строк держатся недолго, а за один запуск
+    обрабатывается не больше maxBatches пакетов. Когда узлов несколько, пакет обрабатывает
+    только тот, кто взял advisory-блокировку Postgres; остальные пропускают запуск.
+ */
+@Slf4j
+@Service
+public class BookingExpiryServiceImpl implements BookingExpiryService {
+
+    // ключ advisory-блокировки задания, общий для всех узлов
+    private static final long EXPIRY_LOCK_KEY = 7_301_150_001L;
+
+    private final BookingRepository bookingRepository;
+    private final BookingSummaryService bookingSummaryService;
+    private final BookingStreamService bookingStreamService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final boolean clusterLock;
+    private final DistributionSummary batchSizes;
+    private final Counter expired;
+    private final Timer duration;
+    // сколько секунд назад должно было начаться самое старое еще не отклоненное бронирование
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public BookingExpiryServiceImpl(BookingRepository bookingRepository,
+                                    BookingSummaryService bookingSummaryService,
+                                    BookingStreamService bookingStreamService,
+                                    TransactionTemplate transactionTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${shareit.bookings.expiry.batch-size:500}") int batchSize,
+                                    @Value("${shareit.bookings.expiry.max-batches:100}") int maxBatches,
+                                    @Value("${shareit.bookings.expiry.cluster-lock:true}") boolean clusterLock) {
+        this.bookingRepository = bookingRepository;
+        this.bookingSummaryService = bookingSummaryService;
+        this.bookingStreamService = bookingStreamService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.clusterLock = clusterLock;
+        this.batchSizes = DistributionSummary.builder("shareit.bookings.expiry.batch.size")
+                .description("Число бронирований, отклоненных одним пакетом")
+                .register(meterRegistry);
+        this.expired = Counter.builder("shareit.bookings.expiry.expired")
+                .description("Число бронирований, отклоненных по истечении срока")
+                .register(meterRegistry);
+        this.duration = Timer.builder("shareit.bookings.expiry.duration")
+                .description("Длительность запуска задания")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Сколько секунд назад должно было начаться самое старое ожидающее бронирование")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry.delay:60000}",
+            initialDelayString = "${shareit.bookings.expiry.delay:60000}")
+    public int expireStale() {
+        return duration.record(() -> {
+            int total = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Integer count;
+                try {
+                    count = transactionTemplate.execute(status -> expireBatch(LocalDateTime.now()));
+                } catch (ConcurrentUpdateException | ConcurrencyFailureException e) {
+                    // владелец принял решение по бронированию из пакета, пакет будет перечитан
+                    log.debug("Пакет просроченных бронирований изменен параллельно, {}", e.getMessage());
+                    continue;
+                }
+                if (count == null) {
+                    log.debug("Отклонение просроченных бронирований выполняет другой узел");
+                    return total;
+                }
+                if (count > 0) {
+                    batchSizes.record(count);
+                    expired.increment(count);
+                }
+                total += count;
+                if (count < batchSize) break;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime oldest = bookingRepository.findOldestStaleWaitingStart(now);
+            lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, now).getSeconds());
+            if (total > 0) {
+                log.info("Отклонено {} бронирований, не подтвержденных до даты начала", total);
+            }
+            return total;
+        });
+    }
+
+    // null - блокировку держит другой узел
+    private Integer expireBatch(LocalDateTime now) {
+        if (clusterLock && !bookingRepository.tryAdvisoryTransactionLock(EXPIRY_LOCK_KEY)) {
+            return null;
+        }
+        List<Booking> bookings = bookingRepository.findStaleWaiting(now, PageRequest.of(0, batchSize));
+        if (bookings.isEmpty()) return 0;
+        int updated = bookingRepository.rejectWaiting(
+                bookings.stream().map(Booking::getId).collect(Collectors.toList())
+        );
+        if (updated != bookings.size()) {
+            throw new ConcurrentUpdateException("статусы бронирований были изменены другим запросом");
+        }
+
+        bookings.forEach(booking -> booking.setStatus(BookingStatus.REJECTED));
+        bookingSummaryService.bookingsExpired(bookings);
+        List<BookingDto> bookingDtos = BookingMapper.toBookingDto(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            bookingStreamService.publish(bookings.get(i).getItem().getOwner().getId(), bookingDtos.get(i));
+        }
+        return bookings.size();
+    }
+}
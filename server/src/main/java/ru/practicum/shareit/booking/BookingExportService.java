@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.model.BookingRole;
+
+/*
+    Выгрузка полной истории бронирований пользователя. Строки пишутся в ответ по мере чтения
+    из базы, поэтому расход памяти не зависит от числа бронирований.
+ */
+public interface BookingExportService {
+
+    // пользователь проверяется сразу, до начала ответа; строки читаются уже при записи тела
+    StreamingResponseBody exportBookings(Long userId, BookingRole role, BookingExportFormat format);
+}
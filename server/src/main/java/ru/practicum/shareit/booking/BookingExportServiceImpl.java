@@ -0,0 +1,110 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+    Тело ответа пишется уже после выхода из контроллера, в потоке асинхронной обработки запроса,
+    поэтому курсор открывается в собственной транзакции только для чтения на время записи.
+ */
+@Service
+public class BookingExportServiceImpl implements BookingExportService {
+
+    private static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId";
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingExportServiceImpl(UserRepository userRepository,
+                                    BookingRepository bookingRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.bookingRepository = bookingRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportBookings(Long userId, BookingRole role, BookingExportFormat format) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntryNotFoundException(
+                    String.format("пользователь с указанным id (%d) не существует", userId)
+            );
+        }
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BookingExportDto> rows = role == BookingRole.BOOKER
+                    ? bookingRepository.streamForBooker(userId)
+                    : bookingRepository.streamForOwner(userId)) {
+                if (format == BookingExportFormat.CSV) {
+                    writeCsv(rows.iterator(), out);
+                } else {
+                    writeNdjson(rows.iterator(), out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(Iterator<BookingExportDto> rows, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            while (rows.hasNext()) {
+                generator.writeObject(rows.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void writeCsv(Iterator<BookingExportDto> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            BookingExportDto row = rows.next();
+            writer.write(String.join(",",
+                    String.valueOf(row.getId()),
+                    String.valueOf(row.getStart()),
+                    String.valueOf(row.getEnd()),
+                    String.valueOf(row.getStatus()),
+                    String.valueOf(row.getItemId()),
+                    csvField(row.getItemName()),
+                    String.valueOf(row.getBookerId())
+            ));
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    // поле в кавычках, если в нем есть разделитель, кавычка или перевод строки (RFC 4180)
+    private static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,59 +1,369 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCounters;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBooker_IdAndEndDateIsBefore(Long bookerId, LocalDateTime date, PageRequest sort);
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingBatchRepository,
+        AdvisoryLockRepository {
+    /*
+        Бронирования владельца отбираются по item_id через подзапрос, а не через соединение
+        с items: так условие остается на таблице bookings и выполняется по индексу.
+        Текущие бронирования читаются по индексу (..., end_date) только среди незавершенных,
+        сколько бы прошедших ни накопилось в таблице. Будущие и так отсекаются по индексу
+        (..., start_date), лишнее условие по end_date только мешает серверу читать один индекс.
+     */
+    String OWNER_ITEMS = "(select item.id from Item item where item.owner.id = ?1)";
+    String EXPORT_FETCH_SIZE = "500";
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.endDate < ?2")
+    Slice<Booking> findPastForBooker(Long userId, LocalDateTime now, PageRequest sort);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
     @Query("select booking " +
             "from Booking booking " +
             "where booking.booker.id = ?1 and booking.startDate < ?2 and booking.endDate > ?2")
-    Page<Booking> findAllCurrentForBooker(Long userId, LocalDateTime now, PageRequest sort);
+    Slice<Booking> findCurrentForBooker(Long userId, LocalDateTime now, PageRequest sort);
 
-    Page<Booking> findByBooker_IdAndStartDateIsAfter(Long bookerId, LocalDateTime date, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.startDate > ?2")
+    Slice<Booking> findFutureForBooker(Long userId, LocalDateTime now, PageRequest sort);
 
-    Page<Booking> findByBooker_Id(Long userId, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1")
+    Slice<Booking> findAllForBooker(Long userId, PageRequest sort);
 
-    Page<Booking> findByBooker_IdAndStatusIs(Long userId, BookingStatus status, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.status = ?2")
+    Slice<Booking> findByStatusForBooker(Long userId, BookingStatus status, PageRequest sort);
 
-    Page<Booking> findByItem_Owner_IdAndEndDateIsBefore(Long userId, LocalDateTime date, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS + " and booking.endDate < ?2")
+    Slice<Booking> findPastForOwner(Long userId, LocalDateTime now, PageRequest sort);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     @Query("select booking " +
             "from Booking booking " +
-            "where booking.item.owner.id = ?1 and booking.startDate < ?2 and booking.endDate > ?2")
-    Page<Booking> findAllCurrentForOwner(Long userId, LocalDateTime date, PageRequest sort);
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and booking.startDate < ?2 and booking.endDate > ?2")
+    Slice<Booking> findCurrentForOwner(Long userId, LocalDateTime now, PageRequest sort);
 
-    Page<Booking> findByItem_Owner_IdAndStartDateIsAfter(Long userId, LocalDateTime date, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS + " and booking.startDate > ?2")
+    Slice<Booking> findFutureForOwner(Long userId, LocalDateTime now, PageRequest sort);
 
-    Page<Booking> findByItem_Owner_IdAndStatusIs(Long userId, BookingStatus status, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS + " and booking.status = ?2")
+    Slice<Booking> findByStatusForOwner(Long userId, BookingStatus status, PageRequest sort);
 
-    Page<Booking> findByItem_Owner_Id(Long userId, PageRequest sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS)
+    Slice<Booking> findAllForOwner(Long userId, PageRequest sort);
 
-    @Query(
-            "select booking " +
+    /*
+        Постраничная выборка по курсору: следующая страница начинается сразу после
+        бронирования с указанными (startDate, id) в порядке убывания.
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and (booking.startDate, booking.id) < (?2, ?3) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findAllForBookerBefore(Long userId, LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
             "from Booking booking " +
-            "where booking.item in ?1 and booking.startDate > ?2 and booking.status = 'APPROVED' " +
-            "order by booking.item.id DESC, booking.startDate ASC"
+            "where booking.booker.id = ?1 and booking.endDate < ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findPastForBookerBefore(Long userId, LocalDateTime now,
+                                          LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.startDate < ?2 and booking.endDate > ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findCurrentForBookerBefore(Long userId, LocalDateTime now,
+                                             LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.startDate > ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findFutureForBookerBefore(Long userId, LocalDateTime now,
+                                            LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.status = ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findByStatusForBookerBefore(Long userId, BookingStatus status,
+                                              LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and (booking.startDate, booking.id) < (?2, ?3) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findAllForOwnerBefore(Long userId, LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and booking.endDate < ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findPastForOwnerBefore(Long userId, LocalDateTime now,
+                                         LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and booking.startDate < ?2 and booking.endDate > ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findCurrentForOwnerBefore(Long userId, LocalDateTime now,
+                                            LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and booking.startDate > ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findFutureForOwnerBefore(Long userId, LocalDateTime now,
+                                           LocalDateTime startDate, Long id, Pageable limit);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS +
+            " and booking.status = ?2 " +
+            "and (booking.startDate, booking.id) < (?3, ?4) " +
+            "order by booking.startDate DESC, booking.id DESC")
+    List<Booking> findByStatusForOwnerBefore(Long userId, BookingStatus status,
+                                             LocalDateTime startDate, Long id, Pageable limit);
+
+    /*
+        Ближайшее следующее и последнее прошедшее подтвержденное бронирование для каждой вещи.
+        Лишние строки отсекает оконная функция в базе, поэтому на вещь приходится не больше одной строки.
+     */
+    @Query(
+            value = "select id, start_date, end_date, item_id, booker_id, status, version " +
+            "from (select booking.*, row_number() over (" +
+            "partition by booking.item_id order by booking.start_date ASC, booking.id ASC) as place " +
+            "from bookings booking " +
+            "where booking.item_id in ?1 and booking.start_date > ?2 and booking.status = 'APPROVED') ranked " +
+            "where ranked.place = 1 " +
+            "order by ranked.item_id",
+            nativeQuery = true
     )
-    List<Booking> findNextBookingsFor(List<Item> items, LocalDateTime date);
+    List<Booking> findNextBookingsFor(Collection<Long> itemIds, LocalDateTime date);
 
     @Query(
-            "select booking " +
-            "from Booking booking " +
-            "where booking.item in ?1 and booking.startDate < ?2 and booking.status = 'APPROVED'" +
-            "order by booking.item.id DESC, booking.startDate DESC"
+            value = "select id, start_date, end_date, item_id, booker_id, status, version " +
+            "from (select booking.*, row_number() over (" +
+            "partition by booking.item_id order by booking.start_date DESC, booking.id DESC) as place " +
+            "from bookings booking " +
+            "where booking.item_id in ?1 and booking.start_date < ?2 and booking.status = 'APPROVED') ranked " +
+            "where ranked.place = 1 " +
+            "order by ranked.item_id",
+            nativeQuery = true
     )
-    List<Booking> findLastBookingsFor(List<Item> items, LocalDateTime date);
+    List<Booking> findLastBookingsFor(Collection<Long> itemIds, LocalDateTime date);
 
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.item.id = ?2")
     List<Booking> findByBooker_IdAndItem_Id(Long userId, Long itemId, Sort sort);
+
+    @Query(
+            "select count(booking) > 0 " +
+            "from Booking booking " +
+            "where booking.item.id = ?1 and booking.status in ?4 " +
+            "and booking.startDate < ?3 and booking.endDate > ?2"
+    )
+    boolean existsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end,
+                              Collection<BookingStatus> statuses);
+
+    /*
+        Для пакетных операций: бронирования и занятые периоды нескольких вещей читаются одним запросом,
+        чужие бронирования отсекаются тем же условием на вещи владельца, а статусы меняются одним UPDATE.
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.id in ?2 and booking.item.id in " + OWNER_ITEMS)
+    List<Booking> findAllForOwnerByIds(Long userId, Collection<Long> bookingIds);
+
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.item.id in ?1 and booking.status in ?4 " +
+            "and booking.startDate < ?3 and booking.endDate > ?2")
+    List<Booking> findForItemsBetween(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end,
+                                      Collection<BookingStatus> statuses);
+
+    // пользователи, чьи счетчики бронирований меняются вместе с бронированиями вещи или пользователя
+    @Query("select distinct booking.booker.id from Booking booking where booking.item.id = ?1")
+    List<Long> findBookerIdsForItem(Long itemId);
+
+    @Query("select distinct booking.booker.id from Booking booking where booking.item.owner.id = ?1")
+    List<Long> findBookerIdsForOwner(Long ownerId);
+
+    @Query("select distinct booking.item.owner.id from Booking booking where booking.booker.id = ?1")
+    List<Long> findOwnerIdsForBooker(Long bookerId);
+
+    // чужие вещи, на подтвержденные бронирования которых может ссылаться вещь
+    @Query("select distinct booking.item.id " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.status = 'APPROVED' and booking.item.owner.id <> ?1")
+    List<Long> findApprovedItemIdsForBooker(Long bookerId);
+
+    /*
+        Статус меняется только у бронирований, которые еще не в целевом статусе, а версия
+        увеличивается, как при обычном обновлении сущности. Если параллельный запрос успел
+        изменить часть бронирований, число обновленных строк окажется меньше ожидаемого.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking booking " +
+            "set booking.status = ?3, booking.version = booking.version + 1 " +
+            "where booking.id in ?2 and booking.status <> ?3 and booking.item.id in " + OWNER_ITEMS)
+    int setStatusForOwner(Long userId, Collection<Long> bookingIds, BookingStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking booking " +
+            "set booking.status = case when booking.id in ?2 then 'APPROVED' else 'REJECTED' end, " +
+            "booking.version = booking.version + 1 " +
+            "where (booking.id in ?2 and booking.status <> 'APPROVED' " +
+            "or booking.id in ?3 and booking.status <> 'REJECTED') and booking.item.id in " + OWNER_ITEMS)
+    int setStatusesForOwner(Long userId, Collection<Long> approvedIds, Collection<Long> rejectedIds);
+
+    /*
+        Выгрузка истории читается курсором порциями по EXPORT_FETCH_SIZE строк. Строки сразу
+        собираются в DTO и не попадают в контекст, поэтому память не растет с длиной истории.
+        Поток нужно читать внутри транзакции и закрыть после чтения.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(booking.id, booking.startDate, " +
+            "booking.endDate, booking.status, bookedItem.id, bookedItem.name, booking.booker.id) " +
+            "from Booking booking join booking.item bookedItem " +
+            "where booking.booker.id = ?1 " +
+            "order by booking.startDate, booking.id")
+    Stream<BookingExportDto> streamForBooker(Long bookerId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(booking.id, booking.startDate, " +
+            "booking.endDate, booking.status, bookedItem.id, bookedItem.name, booking.booker.id) " +
+            "from Booking booking join booking.item bookedItem " +
+            "where booking.item.id in " + OWNER_ITEMS + " " +
+            "order by booking.startDate, booking.id")
+    Stream<BookingExportDto> streamForOwner(Long ownerId);
+
+    // ожидающие решения бронирования, начало которых уже прошло, начиная с самых старых
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select booking " +
+            "from Booking booking " +
+            "where booking.status = 'WAITING' and booking.startDate < ?1 " +
+            "order by booking.startDate, booking.id")
+    List<Booking> findStaleWaiting(LocalDateTime now, Pageable limit);
+
+    @Query("select min(booking.startDate) " +
+            "from Booking booking " +
+            "where booking.status = 'WAITING' and booking.startDate < ?1")
+    LocalDateTime findOldestStaleWaitingStart(LocalDateTime now);
+
+    // бронирования, по которым владелец успел принять решение, не меняются
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking booking " +
+            "set booking.status = 'REJECTED', booking.version = booking.version + 1 " +
+            "where booking.id in ?1 and booking.status = 'WAITING'")
+    int rejectWaiting(Collection<Long> bookingIds);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingCounters(count(booking), " +
+            "sum(case when booking.status = 'WAITING' then 1 else 0 end), " +
+            "sum(case when booking.status = 'REJECTED' then 1 else 0 end), " +
+            "sum(case when booking.startDate <= ?2 then 1 else 0 end), " +
+            "sum(case when booking.endDate < ?2 then 1 else 0 end)) " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1")
+    BookingCounters countForBooker(Long userId, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.model.BookingCounters(count(booking), " +
+            "sum(case when booking.status = 'WAITING' then 1 else 0 end), " +
+            "sum(case when booking.status = 'REJECTED' then 1 else 0 end), " +
+            "sum(case when booking.startDate <= ?2 then 1 else 0 end), " +
+            "sum(case when booking.endDate < ?2 then 1 else 0 end)) " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS)
+    BookingCounters countForOwner(Long userId, LocalDateTime now);
+
+    /*
+        Бронирования, которые начались или закончились в промежутке (from, to]:
+        на столько сдвигаются счетчики started и ended, посчитанные на момент from.
+     */
+    @Query("select count(booking) " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.startDate > ?2 and booking.startDate <= ?3")
+    long countStartedForBooker(Long userId, LocalDateTime from, LocalDateTime to);
+
+    @Query("select count(booking) " +
+            "from Booking booking " +
+            "where booking.booker.id = ?1 and booking.endDate >= ?2 and booking.endDate < ?3")
+    long countEndedForBooker(Long userId, LocalDateTime from, LocalDateTime to);
+
+    @Query("select count(booking) " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS + " and booking.startDate > ?2 and booking.startDate <= ?3")
+    long countStartedForOwner(Long userId, LocalDateTime from, LocalDateTime to);
+
+    @Query("select count(booking) " +
+            "from Booking booking " +
+            "where booking.item.id in " + OWNER_ITEMS + " and booking.endDate >= ?2 and booking.endDate < ?3")
+    long countEndedForOwner(Long userId, LocalDateTime from, LocalDateTime to);
 }
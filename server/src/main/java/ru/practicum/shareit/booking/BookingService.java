@@ -1,11 +1,16 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Transactional(readOnly = true)
 public interface BookingService {
@@ -14,12 +19,35 @@ public interface BookingService {
     @Transactional
     BookingDto createBooking(Long userId, BookingInDto booking);
 
+    // создает все бронирования пакета или ни одного; результаты в порядке запроса
+    @Transactional
+    List<BookingDto> createBookings(Long userId, List<BookingInDto> bookings);
+
     @Transactional
     BookingDto setBookingApproveStatus(Long userId, Long bookingId, Boolean approved);
 
+    // результаты возвращаются в порядке решений, неприменимые решения не мешают остальным
+    @Transactional
+    List<BookingDecisionResultDto> setBookingsApproveStatus(Long userId, List<BookingDecisionDto> decisions);
+
+    @Transactional
+    Map<BookingStateFilter, Long> getUserBookingSummary(Long userId);
+
+    @Transactional
+    Map<BookingStateFilter, Long> getOwnerBookingSummary(Long userId);
+
+    // занятой считается вещь с ожидающим или подтвержденным бронированием, как при создании бронирования
+    boolean isItemFree(Long itemId, LocalDateTime start, LocalDateTime end);
+
     List<BookingDto> getUserBookings(Long userId, BookingStateFilter stateFilter,
                                      Integer from, Integer size);
 
     List<BookingDto> getOwnerBookings(Long userId, BookingStateFilter stateFilter,
                                       Integer from, Integer size);
+
+    List<BookingDto> getUserBookings(Long userId, BookingStateFilter stateFilter,
+                                     BookingCursor cursor, Integer size);
+
+    List<BookingDto> getOwnerBookings(Long userId, BookingStateFilter stateFilter,
+                                      BookingCursor cursor, Integer size);
 }
@@ -2,27 +2,47 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.ConcurrentUpdateException;
 import ru.practicum.shareit.error.EntryNotFoundException;
 import ru.practicum.shareit.error.InvalidRequestParamsException;
 import ru.practicum.shareit.error.ItemNotAvailableException;
+import ru.practicum.shareit.item.ItemAvailabilityService;
+import ru.practicum.shareit.item.ItemBookingPointerService;
+import ru.practicum.shareit.item.ItemDetailsCacheService;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -30,9 +50,19 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
+    // бронирования в этих статусах занимают вещь на свой период
+    private static final Set<BookingStatus> OCCUPYING_STATUSES = EnumSet.of(
+            BookingStatus.WAITING, BookingStatus.APPROVED
+    );
+
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
+    private final ItemBookingPointerService itemBookingPointerService;
+    private final ItemAvailabilityService itemAvailabilityService;
+    private final ItemDetailsCacheService itemDetailsCacheService;
+    private final BookingSummaryService bookingSummaryService;
+    private final BookingStreamService bookingStreamService;
 
     @Override
     public BookingDto getBookingById(Long userId, Long bookingId) {
@@ -51,26 +81,89 @@ public class BookingServiceImpl implements BookingService {
     public BookingDto createBooking(Long userId, BookingInDto booking) {
         User user = getUserOrThrow(userId);
         Item item = getItemOrThrow(booking.getItemId());
-        if (!item.isAvailable()) {
+        checkNewBooking(userId, item, booking);
+        // как и при подтверждении: пересекающиеся бронирования одной вещи проверяются по очереди
+        itemRepository.lockAllById(List.of(item.getId()));
+        if (bookingRepository.existsOverlapping(
+                item.getId(), booking.getStart(), booking.getEnd(), OCCUPYING_STATUSES)) {
             throw new ItemNotAvailableException(
-                    String.format("вещь с id = %d не доступна для бронирования", item.getId())
+                    String.format("вещь с id = %d уже забронирована на указанный период", item.getId())
             );
         }
-        if (item.getOwner().getId().equals(userId)) {
-            throw new EntryNotFoundException(
-                    String.format("вещь с id = %d не найдена", item.getId())
-            );
-        }
-        if (!booking.getEnd().isAfter(booking.getStart())) {
-            throw new InvalidRequestParamsException("дата окончания бронирования должна быть после даты начала");
-        }
         Booking newBooking = new Booking();
         newBooking.setStartDate(booking.getStart());
         newBooking.setEndDate(booking.getEnd());
         newBooking.setItem(item);
         newBooking.setBooker(user);
         newBooking.setStatus(BookingStatus.WAITING);
-        return BookingMapper.toBookingDto(bookingRepository.save(newBooking));
+        Booking savedBooking = bookingRepository.save(newBooking);
+        bookingSummaryService.bookingCreated(savedBooking);
+        BookingDto bookingDto = BookingMapper.toBookingDto(savedBooking);
+        bookingStreamService.publish(item.getOwner().getId(), bookingDto);
+        return bookingDto;
+    }
+
+    /*
+        Все бронирования пакета создаются или не создается ни одно. Вещи и занятые периоды читаются
+        двумя запросами, пересечения проверяются в памяти (в том числе между бронированиями пакета),
+        строки вставляются одним JDBC-пакетом, id возвращает сама вставка.
+     */
+    @Override
+    @Transactional
+    public List<BookingDto> createBookings(Long userId, List<BookingInDto> bookings) {
+        User user = getUserOrThrow(userId);
+        if (bookings.isEmpty()) return Collections.emptyList();
+        Set<Long> itemIds = bookings.stream().map(BookingInDto::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        for (BookingInDto booking : bookings) {
+            Item item = items.get(booking.getItemId());
+            if (item == null) {
+                throw new EntryNotFoundException(String.format("вещь с id = %d не найдена", booking.getItemId()));
+            }
+            checkNewBooking(userId, item, booking);
+        }
+        itemRepository.lockAllById(itemIds);
+
+        // в базе время хранится с точностью до микросекунд, ответ должен совпадать с сохраненным
+        List<Booking> newBookings = bookings.stream()
+                .map(booking -> {
+                    Booking newBooking = new Booking();
+                    newBooking.setStartDate(booking.getStart().truncatedTo(ChronoUnit.MICROS));
+                    newBooking.setEndDate(booking.getEnd().truncatedTo(ChronoUnit.MICROS));
+                    newBooking.setItem(items.get(booking.getItemId()));
+                    newBooking.setBooker(user);
+                    newBooking.setStatus(BookingStatus.WAITING);
+                    return newBooking;
+                })
+                .collect(Collectors.toList());
+        LocalDateTime from = newBookings.stream().map(Booking::getStartDate).min(Comparator.naturalOrder()).get();
+        LocalDateTime lastEnd = newBookings.stream().map(Booking::getEndDate).max(Comparator.naturalOrder()).get();
+        Map<Long, List<Booking>> occupiedByItem = bookingRepository.findForItemsBetween(
+                itemIds, from, lastEnd, OCCUPYING_STATUSES
+        ).stream().collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+        for (Booking newBooking : newBookings) {
+            List<Booking> occupied = occupiedByItem.computeIfAbsent(
+                    newBooking.getItem().getId(), itemId -> new ArrayList<>()
+            );
+            if (occupied.stream().anyMatch(other -> overlaps(other, newBooking))) {
+                throw new ItemNotAvailableException(String.format(
+                        "вещь с id = %d уже забронирована на указанный период", newBooking.getItem().getId()
+                ));
+            }
+            occupied.add(newBooking);
+        }
+
+        bookingRepository.insertAll(newBookings);
+
+        bookingSummaryService.bookingsCreated(userId, items.values().stream()
+                .map(item -> item.getOwner().getId())
+                .collect(Collectors.toSet()));
+        List<BookingDto> bookingDtos = BookingMapper.toBookingDto(newBookings);
+        for (int i = 0; i < newBookings.size(); i++) {
+            bookingStreamService.publish(newBookings.get(i).getItem().getOwner().getId(), bookingDtos.get(i));
+        }
+        return bookingDtos;
     }
 
     @Override
@@ -87,8 +180,99 @@ public class BookingServiceImpl implements BookingService {
                     String.format("вещь с id = %d не доступна для бронирования", booking.getItem().getId())
             );
         }
+        if (approved) {
+            itemRepository.lockAllById(List.of(booking.getItem().getId()));
+        }
+        if (approved && bookingRepository.existsOverlapping(
+                booking.getItem().getId(), booking.getStartDate(), booking.getEndDate(),
+                EnumSet.of(BookingStatus.APPROVED))) {
+            throw new ItemNotAvailableException(
+                    String.format("вещь с id = %d уже забронирована на указанный период", booking.getItem().getId())
+            );
+        }
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        return BookingMapper.toBookingDto(booking);
+        bookingSummaryService.statusChanged(booking, previousStatus);
+        if (approved) {
+            itemBookingPointerService.bookingApproved(booking);
+            itemAvailabilityService.bookingApproved(booking);
+        } else {
+            itemBookingPointerService.bookingRejected(booking);
+            if (previousStatus == BookingStatus.APPROVED) {
+                itemAvailabilityService.invalidate(booking.getItem().getId());
+            }
+        }
+        if (approved || previousStatus == BookingStatus.APPROVED) {
+            itemDetailsCacheService.bookingsChanged(booking.getItem().getId());
+        }
+        BookingDto bookingDto = BookingMapper.toBookingDto(booking);
+        bookingStreamService.publish(userId, bookingDto);
+        return bookingDto;
+    }
+
+    /*
+        Решения применяются в порядке запроса. Бронирования и занятые периоды их вещей читаются
+        двумя запросами, проверки выполняются в памяти, а статусы меняются одним UPDATE,
+        поэтому число запросов не зависит от числа решений.
+     */
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> setBookingsApproveStatus(Long userId, List<BookingDecisionDto> decisions) {
+        getUserOrThrow(userId);
+        if (decisions.isEmpty()) return Collections.emptyList();
+        Map<Long, Booking> bookings = bookingRepository.findAllForOwnerByIds(
+                userId, decisions.stream().map(BookingDecisionDto::getBookingId).collect(Collectors.toSet())
+        ).stream().collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<Long, List<Booking>> approvedByItem = findApprovedForDecisions(decisions, bookings);
+
+        Map<Long, BookingStatus> newStatuses = new LinkedHashMap<>();
+        // причина отказа для каждого решения по порядку, null - решение применено
+        List<String> errors = new ArrayList<>();
+        for (BookingDecisionDto decision : decisions) {
+            Booking booking = bookings.get(decision.getBookingId());
+            String error = checkDecision(decision, booking, newStatuses, approvedByItem);
+            if (error == null) {
+                boolean approved = Boolean.TRUE.equals(decision.getApproved());
+                List<Booking> approvedForItem = approvedByItem.get(booking.getItem().getId());
+                if (approved) {
+                    approvedForItem.add(booking);
+                } else {
+                    approvedForItem.removeIf(other -> other.getId().equals(booking.getId()));
+                }
+                newStatuses.put(booking.getId(), approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+            }
+            errors.add(error);
+        }
+
+        List<Booking> changed = applyStatuses(userId, newStatuses, bookings);
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            Long bookingId = decisions.get(i).getBookingId();
+            results.add(errors.get(i) == null
+                    ? BookingDecisionResultDto.applied(BookingMapper.toBookingDto(bookings.get(bookingId)))
+                    : BookingDecisionResultDto.failed(bookingId, errors.get(i)));
+        }
+        changed.forEach(booking -> bookingStreamService.publish(userId, BookingMapper.toBookingDto(booking)));
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public Map<BookingStateFilter, Long> getUserBookingSummary(Long userId) {
+        getUserOrThrow(userId);
+        return bookingSummaryService.getSummary(userId, BookingRole.BOOKER);
+    }
+
+    @Override
+    @Transactional
+    public Map<BookingStateFilter, Long> getOwnerBookingSummary(Long userId) {
+        getUserOrThrow(userId);
+        return bookingSummaryService.getSummary(userId, BookingRole.OWNER);
+    }
+
+    @Override
+    public boolean isItemFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return !bookingRepository.existsOverlapping(itemId, start, end, OCCUPYING_STATUSES);
     }
 
     @Override
@@ -98,37 +282,37 @@ public class BookingServiceImpl implements BookingService {
                                             Integer size) {
         getUserOrThrow(userId);
         PageRequest pageRequest = PageRequest.of(
-                from / size, size, Sort.by(Sort.Direction.DESC, "startDate")
+                from / size, size, Sort.by(Sort.Direction.DESC, "startDate", "id")
         );
-        Page<Booking> bookings;
+        Slice<Booking> bookings;
         switch (stateFilter) {
             case PAST:
-                bookings = bookingRepository.findByBooker_IdAndEndDateIsBefore(
+                bookings = bookingRepository.findPastForBooker(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case CURRENT:
-                bookings = bookingRepository.findAllCurrentForBooker(
+                bookings = bookingRepository.findCurrentForBooker(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case FUTURE:
-                bookings = bookingRepository.findByBooker_IdAndStartDateIsAfter(
+                bookings = bookingRepository.findFutureForBooker(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case WAITING:
-                bookings = bookingRepository.findByBooker_IdAndStatusIs(
+                bookings = bookingRepository.findByStatusForBooker(
                         userId, BookingStatus.WAITING, pageRequest
                 );
                 break;
             case REJECTED:
-                bookings = bookingRepository.findByBooker_IdAndStatusIs(
+                bookings = bookingRepository.findByStatusForBooker(
                         userId, BookingStatus.REJECTED, pageRequest
                 );
                 break;
             default:
-                bookings = bookingRepository.findByBooker_Id(
+                bookings = bookingRepository.findAllForBooker(
                         userId, pageRequest
                 );
         }
@@ -142,42 +326,245 @@ public class BookingServiceImpl implements BookingService {
                                              Integer size) {
         getUserOrThrow(userId);
         PageRequest pageRequest = PageRequest.of(
-                from / size, size, Sort.by(Sort.Direction.DESC, "startDate")
+                from / size, size, Sort.by(Sort.Direction.DESC, "startDate", "id")
         );
-        Page<Booking> bookings;
+        Slice<Booking> bookings;
         switch (stateFilter) {
             case PAST:
-                bookings = bookingRepository.findByItem_Owner_IdAndEndDateIsBefore(
+                bookings = bookingRepository.findPastForOwner(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case CURRENT:
-                bookings = bookingRepository.findAllCurrentForOwner(
+                bookings = bookingRepository.findCurrentForOwner(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case FUTURE:
-                bookings = bookingRepository.findByItem_Owner_IdAndStartDateIsAfter(
+                bookings = bookingRepository.findFutureForOwner(
                         userId, LocalDateTime.now(), pageRequest
                 );
                 break;
             case WAITING:
-                bookings = bookingRepository.findByItem_Owner_IdAndStatusIs(
+                bookings = bookingRepository.findByStatusForOwner(
                         userId, BookingStatus.WAITING, pageRequest
                 );
                 break;
             case REJECTED:
-                bookings = bookingRepository.findByItem_Owner_IdAndStatusIs(
+                bookings = bookingRepository.findByStatusForOwner(
                         userId, BookingStatus.REJECTED, pageRequest
                 );
                 break;
             default:
-                bookings = bookingRepository.findByItem_Owner_Id(userId, pageRequest);
+                bookings = bookingRepository.findAllForOwner(userId, pageRequest);
 
         }
         return BookingMapper.toBookingDto(bookings.toList());
     }
 
+    @Override
+    public List<BookingDto> getUserBookings(Long userId,
+                                            BookingStateFilter stateFilter,
+                                            BookingCursor cursor,
+                                            Integer size) {
+        getUserOrThrow(userId);
+        PageRequest limit = PageRequest.of(0, size);
+        List<Booking> bookings;
+        switch (stateFilter) {
+            case PAST:
+                bookings = bookingRepository.findPastForBookerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findCurrentForBookerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureForBookerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case WAITING:
+                bookings = bookingRepository.findByStatusForBookerBefore(
+                        userId, BookingStatus.WAITING, cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findByStatusForBookerBefore(
+                        userId, BookingStatus.REJECTED, cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            default:
+                bookings = bookingRepository.findAllForBookerBefore(
+                        userId, cursor.getStartDate(), cursor.getId(), limit
+                );
+        }
+        return BookingMapper.toBookingDto(bookings);
+    }
+
+    @Override
+    public List<BookingDto> getOwnerBookings(Long userId,
+                                             BookingStateFilter stateFilter,
+                                             BookingCursor cursor,
+                                             Integer size) {
+        getUserOrThrow(userId);
+        PageRequest limit = PageRequest.of(0, size);
+        List<Booking> bookings;
+        switch (stateFilter) {
+            case PAST:
+                bookings = bookingRepository.findPastForOwnerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findCurrentForOwnerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureForOwnerBefore(
+                        userId, LocalDateTime.now(), cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case WAITING:
+                bookings = bookingRepository.findByStatusForOwnerBefore(
+                        userId, BookingStatus.WAITING, cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findByStatusForOwnerBefore(
+                        userId, BookingStatus.REJECTED, cursor.getStartDate(), cursor.getId(), limit
+                );
+                break;
+            default:
+                bookings = bookingRepository.findAllForOwnerBefore(
+                        userId, cursor.getStartDate(), cursor.getId(), limit
+                );
+        }
+        return BookingMapper.toBookingDto(bookings);
+    }
+
+    // занятые подтвержденными бронированиями периоды вещей, которые решения собираются подтвердить
+    private Map<Long, List<Booking>> findApprovedForDecisions(List<BookingDecisionDto> decisions,
+                                                              Map<Long, Booking> bookings) {
+        List<Booking> toApprove = decisions.stream()
+                .filter(decision -> Boolean.TRUE.equals(decision.getApproved()))
+                .map(decision -> bookings.get(decision.getBookingId()))
+                .filter(booking -> booking != null && booking.getStatus() != BookingStatus.APPROVED)
+                .collect(Collectors.toList());
+        Map<Long, List<Booking>> approvedByItem = new HashMap<>();
+        bookings.values().forEach(booking -> approvedByItem.put(booking.getItem().getId(), new ArrayList<>()));
+        if (toApprove.isEmpty()) return approvedByItem;
+
+        itemRepository.lockAllById(toApprove.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        LocalDateTime start = toApprove.stream().map(Booking::getStartDate).min(Comparator.naturalOrder()).get();
+        LocalDateTime end = toApprove.stream().map(Booking::getEndDate).max(Comparator.naturalOrder()).get();
+        List<Booking> approved = bookingRepository.findForItemsBetween(
+                approvedByItem.keySet(), start, end, EnumSet.of(BookingStatus.APPROVED)
+        );
+        approved.forEach(booking -> approvedByItem.get(booking.getItem().getId()).add(booking));
+        return approvedByItem;
+    }
+
+    private static void checkNewBooking(Long userId, Item item, BookingInDto booking) {
+        if (!item.isAvailable()) {
+            throw new ItemNotAvailableException(
+                    String.format("вещь с id = %d не доступна для бронирования", item.getId())
+            );
+        }
+        if (item.getOwner().getId().equals(userId)) {
+            throw new EntryNotFoundException(
+                    String.format("вещь с id = %d не найдена", item.getId())
+            );
+        }
+        if (!booking.getEnd().isAfter(booking.getStart())) {
+            throw new InvalidRequestParamsException("дата окончания бронирования должна быть после даты начала");
+        }
+    }
+
+    private static boolean overlaps(Booking first, Booking second) {
+        return first.getStartDate().isBefore(second.getEndDate()) && first.getEndDate().isAfter(second.getStartDate());
+    }
+
+    private static String checkDecision(BookingDecisionDto decision,
+                                        Booking booking,
+                                        Map<Long, BookingStatus> newStatuses,
+                                        Map<Long, List<Booking>> approvedByItem) {
+        if (booking == null) {
+            return String.format("бронирование с указанным id (%d) не существует", decision.getBookingId());
+        }
+        if (newStatuses.containsKey(booking.getId())) {
+            return String.format("решение по бронированию с id = %d передано повторно", booking.getId());
+        }
+        if (!Boolean.TRUE.equals(decision.getApproved())) return null;
+        if (booking.getStatus() == BookingStatus.APPROVED) {
+            return String.format("вещь с id = %d не доступна для бронирования", booking.getItem().getId());
+        }
+        boolean occupied = approvedByItem.get(booking.getItem().getId()).stream()
+                .anyMatch(other -> !other.getId().equals(booking.getId()) && overlaps(other, booking));
+        if (occupied) {
+            return String.format("вещь с id = %d уже забронирована на указанный период", booking.getItem().getId());
+        }
+        return null;
+    }
+
+    /*
+        Статусы меняются одним UPDATE, который очищает контекст: загруженные бронирования отсоединяются,
+        и новый статус проставляется им уже без повторной записи в базу. UPDATE не трогает бронирования,
+        уже находящиеся в целевом статусе, поэтому расхождение числа строк с прочитанными статусами
+        означает, что их успели изменить параллельно, и весь пакет откатывается.
+     */
+    private List<Booking> applyStatuses(Long userId, Map<Long, BookingStatus> newStatuses, Map<Long, Booking> bookings) {
+        if (newStatuses.isEmpty()) return Collections.emptyList();
+        Set<Long> approvedIds = new HashSet<>();
+        Set<Long> rejectedIds = new HashSet<>();
+        newStatuses.forEach((bookingId, status) -> (status == BookingStatus.APPROVED ? approvedIds : rejectedIds)
+                .add(bookingId));
+        long expected = newStatuses.entrySet().stream()
+                .filter(entry -> bookings.get(entry.getKey()).getStatus() != entry.getValue())
+                .count();
+        int updated;
+        if (approvedIds.isEmpty() || rejectedIds.isEmpty()) {
+            updated = bookingRepository.setStatusForOwner(
+                    userId, newStatuses.keySet(), approvedIds.isEmpty() ? BookingStatus.REJECTED : BookingStatus.APPROVED
+            );
+        } else {
+            updated = bookingRepository.setStatusesForOwner(userId, approvedIds, rejectedIds);
+        }
+        if (updated != expected) {
+            throw new ConcurrentUpdateException(
+                    "статусы бронирований были изменены другим запросом, повторите запрос"
+            );
+        }
+
+        Map<Long, BookingStatus> previousStatuses = new HashMap<>();
+        Set<Long> itemIds = new HashSet<>();
+        List<Booking> changed = new ArrayList<>();
+        newStatuses.forEach((bookingId, status) -> {
+            Booking booking = bookings.get(bookingId);
+            previousStatuses.put(bookingId, booking.getStatus());
+            // ссылки вещей указывают только на подтвержденные бронирования
+            if (status == BookingStatus.APPROVED || booking.getStatus() == BookingStatus.APPROVED) {
+                itemIds.add(booking.getItem().getId());
+            }
+            if (status == BookingStatus.APPROVED) {
+                itemAvailabilityService.bookingApproved(booking);
+            } else if (booking.getStatus() == BookingStatus.APPROVED) {
+                itemAvailabilityService.invalidate(booking.getItem().getId());
+            }
+            booking.setStatus(status);
+            changed.add(booking);
+        });
+        bookingSummaryService.statusesChanged(userId, changed, previousStatuses);
+        itemBookingPointerService.bookingsChanged(itemIds);
+        itemIds.forEach(itemDetailsCacheService::bookingsChanged);
+        return changed;
+    }
+
     private User getUserOrThrow(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new EntryNotFoundException(
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+/*
+    Поток событий (Server-Sent Events) о бронированиях вещей владельца: новые запросы
+    на бронирование и смена их статуса. Владелец получает их без опроса GET /bookings/owner.
+ */
+public interface BookingStreamService {
+
+    // lastEventId - id последнего полученного события, с него поток продолжается после переподключения
+    SseEmitter subscribe(Long ownerId, Long lastEventId);
+
+    // событие уходит подписчикам после фиксации текущей транзакции
+    void publish(Long ownerId, BookingDto booking);
+}
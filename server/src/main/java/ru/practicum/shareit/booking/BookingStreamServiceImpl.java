@@ -0,0 +1,259 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+    Подписки держатся на асинхронных запросах сервлета и между событиями не занимают потоков.
+    События владельца попадают в ограниченные очереди его подписчиков, а отправку выполняет
+    небольшой общий пул. Клиент, который не успевает читать, отключается и после переподключения
+    дочитывает пропущенное из буфера последних событий владельца по заголовку Last-Event-ID.
+    Если нужных событий в буфере уже нет или они не помещаются в очередь нового подписчика,
+    клиент получает событие reset и должен перечитать бронирования запросом GET /bookings/owner.
+    Очередь подписчика должна вмещать весь буфер повтора, иначе клиент, отставший на весь буфер,
+    никогда бы его не дочитал.
+ */
+@Slf4j
+@Service
+public class BookingStreamServiceImpl implements BookingStreamService {
+
+    private static final String BOOKING_EVENT = "booking";
+    private static final String RESET_EVENT = "reset";
+    private static final long RECONNECT_TIME_MILLIS = 5000;
+
+    private final UserRepository userRepository;
+    private final Executor sender;
+    private final long timeout;
+    private final int replaySize;
+    private final long replayTtl;
+    private final int bufferSize;
+    // id событий продолжают расти после перезапуска, поэтому старый Last-Event-ID не указывает в будущее
+    private final AtomicLong eventIds = new AtomicLong(System.currentTimeMillis());
+    private final Map<Long, OwnerChannel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingStreamServiceImpl(UserRepository userRepository,
+                                    @Value("${shareit.bookings.stream.timeout:1800000}") long timeout,
+                                    @Value("${shareit.bookings.stream.replay-size:100}") int replaySize,
+                                    @Value("${shareit.bookings.stream.replay-ttl:600000}") long replayTtl,
+                                    @Value("${shareit.bookings.stream.buffer-size:128}") int bufferSize,
+                                    @Value("${shareit.bookings.stream.sender-threads:4}") int senderThreads) {
+        this(userRepository,
+                Executors.newFixedThreadPool(senderThreads, new CustomizableThreadFactory("booking-stream-")),
+                timeout, replaySize, replayTtl, bufferSize);
+    }
+
+    BookingStreamServiceImpl(UserRepository userRepository, Executor sender,
+                             long timeout, int replaySize, long replayTtl, int bufferSize) {
+        if (replaySize >= bufferSize) {
+            throw new IllegalArgumentException(String.format(
+                    "shareit.bookings.stream.buffer-size (%d) должен быть больше replay-size (%d)",
+                    bufferSize, replaySize
+            ));
+        }
+        this.userRepository = userRepository;
+        this.sender = sender;
+        this.timeout = timeout;
+        this.replaySize = replaySize;
+        this.replayTtl = replayTtl;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public SseEmitter subscribe(Long ownerId, Long lastEventId) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new EntryNotFoundException(
+                    String.format("пользователь с указанным id (%d) не существует", ownerId)
+            );
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        channels.compute(ownerId, (id, channel) -> {
+            OwnerChannel ownerChannel = channel == null ? new OwnerChannel() : channel;
+            ownerChannel.subscribe(new Subscriber(ownerChannel, emitter), lastEventId);
+            return ownerChannel;
+        });
+        return emitter;
+    }
+
+    @Override
+    public void publish(Long ownerId, BookingDto booking) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(ownerId, booking);
+                }
+            });
+        } else {
+            send(ownerId, booking);
+        }
+    }
+
+    // комментарий раз в интервал не дает прокси закрыть тихое соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat-delay:30000}",
+            initialDelayString = "${shareit.bookings.stream.heartbeat-delay:30000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Long ownerId : channels.keySet()) {
+            channels.computeIfPresent(ownerId, (id, channel) -> {
+                if (channel.subscribers.isEmpty()) {
+                    return now - channel.lastEventAt > replayTtl ? null : channel;
+                }
+                channel.subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("")));
+                return channel;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdownNow();
+        }
+    }
+
+    private void send(Long ownerId, BookingDto booking) {
+        channels.compute(ownerId, (id, channel) -> {
+            OwnerChannel ownerChannel = channel == null ? new OwnerChannel() : channel;
+            ownerChannel.publish(new BookingEvent(eventIds.incrementAndGet(), booking));
+            return ownerChannel;
+        });
+    }
+
+    private static final class BookingEvent {
+        private final long id;
+        private final BookingDto booking;
+
+        private BookingEvent(long id, BookingDto booking) {
+            this.id = id;
+            this.booking = booking;
+        }
+
+        private SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name(BOOKING_EVENT)
+                    .data(booking, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    // методы вызываются внутри compute по ключу владельца, поэтому выполняются по очереди
+    private final class OwnerChannel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Deque<BookingEvent> recent = new ArrayDeque<>();
+        // события с id не больше этого в буфере уже нет
+        private long forgottenUpTo = eventIds.get();
+        private long lastEventAt = System.currentTimeMillis();
+
+        private void subscribe(Subscriber subscriber, Long lastEventId) {
+            subscribers.add(subscriber);
+            subscriber.offer(SseEmitter.event().reconnectTime(RECONNECT_TIME_MILLIS));
+            if (lastEventId == null) return;
+            List<BookingEvent> missed = recent.stream()
+                    .filter(event -> event.id > lastEventId)
+                    .collect(Collectors.toList());
+            boolean forgotten = lastEventId < forgottenUpTo;
+            // переполнение очереди отключило бы клиента, и он переподключался бы с тем же Last-Event-ID
+            boolean fits = missed.size() + (forgotten ? 1 : 0) <= subscriber.queue.remainingCapacity();
+            if (forgotten || !fits) {
+                subscriber.offer(SseEmitter.event().name(RESET_EVENT).data(lastEventId));
+            }
+            if (fits) {
+                missed.forEach(event -> subscriber.offer(event.toSse()));
+            }
+        }
+
+        private void publish(BookingEvent event) {
+            if (recent.size() == replaySize) {
+                forgottenUpTo = recent.removeFirst().id;
+            }
+            recent.addLast(event);
+            lastEventAt = System.currentTimeMillis();
+            subscribers.forEach(subscriber -> subscriber.offer(event.toSse()));
+        }
+    }
+
+    private final class Subscriber {
+        private final OwnerChannel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(OwnerChannel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) return;
+            if (!queue.offer(event)) {
+                log.debug("Подписчик не успевает читать события о бронированиях, соединение закрывается");
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // событие могло прийти после опустошения очереди, но до снятия флага
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            queue.clear();
+            channel.subscribers.remove(this);
+        }
+    }
+}
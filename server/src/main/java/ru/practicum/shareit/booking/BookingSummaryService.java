@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Число бронирований пользователя в каждом состоянии по счетчикам,
+    которые обновляются при создании бронирования и смене его статуса.
+ */
+@Transactional(readOnly = true)
+public interface BookingSummaryService {
+
+    @Transactional
+    Map<BookingStateFilter, Long> getSummary(Long userId, BookingRole role);
+
+    @Transactional
+    void bookingCreated(Booking booking);
+
+    // пакет бронирований арендатора для вещей указанных владельцев
+    @Transactional
+    void bookingsCreated(Long bookerId, Collection<Long> ownerIds);
+
+    @Transactional
+    void statusChanged(Booking booking, BookingStatus previousStatus);
+
+    // решения владельца по нескольким бронированиям; previousStatuses - статусы до решения по id бронирований
+    @Transactional
+    void statusesChanged(Long ownerId, List<Booking> bookings, Map<Long, BookingStatus> previousStatuses);
+
+    // ожидавшие решения бронирования разных пользователей отклонены по истечении срока
+    @Transactional
+    void bookingsExpired(List<Booking> bookings);
+
+    // бронирования вещи удаляются каскадно, поэтому счетчики затронутых пользователей сбрасываются
+    @Transactional
+    void itemDeleted(Long itemId, Long ownerId);
+
+    @Transactional
+    void userDeleted(Long userId);
+}
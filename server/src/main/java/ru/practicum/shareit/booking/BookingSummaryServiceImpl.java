@@ -0,0 +1,222 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCounters;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BookingSummaryServiceImpl implements BookingSummaryService {
+
+    private static final Duration MOVE_FORWARD_AFTER = Duration.ofHours(1);
+
+    private final BookingCountersRepository bookingCountersRepository;
+    private final BookingRepository bookingRepository;
+
+    /*
+        Обычное чтение не блокирует и не пишет: бронирования, начавшиеся или закончившиеся после
+        countedAt, досчитываются запросом. Строка записывается, только если ее нет или момент подсчета
+        старше MOVE_FORWARD_AFTER, чтобы досчет оставался коротким.
+     */
+    @Transactional
+    @Override
+    public Map<BookingStateFilter, Long> getSummary(Long userId, BookingRole role) {
+        // в базе время хранится с точностью до микросекунд
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        BookingCounters counters = bookingCountersRepository.findByUserIdAndRole(userId, role)
+                .filter(stored -> stored.getCountedAt() != null
+                        && stored.getCountedAt().isAfter(now.minus(MOVE_FORWARD_AFTER)))
+                .orElseGet(() -> countAndStore(userId, role, now));
+        long started = counters.getStarted();
+        long ended = counters.getEnded();
+        if (counters.getCountedAt().isBefore(now)) {
+            started += countStarted(counters, now);
+            ended += countEnded(counters, now);
+        }
+
+        Map<BookingStateFilter, Long> summary = new EnumMap<>(BookingStateFilter.class);
+        summary.put(BookingStateFilter.ALL, counters.getTotal());
+        summary.put(BookingStateFilter.PAST, ended);
+        summary.put(BookingStateFilter.CURRENT, started - ended);
+        summary.put(BookingStateFilter.FUTURE, counters.getTotal() - started);
+        summary.put(BookingStateFilter.WAITING, counters.getWaiting());
+        summary.put(BookingStateFilter.REJECTED, counters.getRejected());
+        return summary;
+    }
+
+    @Transactional
+    @Override
+    public void bookingCreated(Booking booking) {
+        bookingCountersRepository.lockForUpdate(
+                List.of(booking.getBooker().getId()), List.of(booking.getItem().getOwner().getId())
+        );
+        bookingCountersRepository.addWaitingBooking(
+                booking.getBooker().getId(), BookingRole.BOOKER, booking.getStartDate(), booking.getEndDate()
+        );
+        bookingCountersRepository.addWaitingBooking(
+                booking.getItem().getOwner().getId(), BookingRole.OWNER, booking.getStartDate(), booking.getEndDate()
+        );
+    }
+
+    // пакет может быть большим, поэтому счетчики не сдвигаются по одному, а пересчитываются при следующем чтении
+    @Transactional
+    @Override
+    public void bookingsCreated(Long bookerId, Collection<Long> ownerIds) {
+        bookingCountersRepository.lockForUpdate(List.of(bookerId), ownerIds);
+        bookingCountersRepository.reset(bookerId, BookingRole.BOOKER);
+        bookingCountersRepository.resetAll(ownerIds, BookingRole.OWNER);
+    }
+
+    @Transactional
+    @Override
+    public void statusChanged(Booking booking, BookingStatus previousStatus) {
+        long waitingDelta = statusDelta(BookingStatus.WAITING, previousStatus, booking.getStatus());
+        long rejectedDelta = statusDelta(BookingStatus.REJECTED, previousStatus, booking.getStatus());
+        if (waitingDelta == 0 && rejectedDelta == 0) return;
+        bookingCountersRepository.lockForUpdate(
+                List.of(booking.getBooker().getId()), List.of(booking.getItem().getOwner().getId())
+        );
+        bookingCountersRepository.changeStatusCounters(
+                booking.getBooker().getId(), BookingRole.BOOKER, waitingDelta, rejectedDelta
+        );
+        bookingCountersRepository.changeStatusCounters(
+                booking.getItem().getOwner().getId(), BookingRole.OWNER, waitingDelta, rejectedDelta
+        );
+    }
+
+    /*
+        Счетчик владельца меняется одним UPDATE на сумму приращений. Арендаторов может быть много,
+        поэтому их счетчики сбрасываются одним запросом и будут пересчитаны при следующем чтении.
+     */
+    @Transactional
+    @Override
+    public void statusesChanged(Long ownerId, List<Booking> bookings, Map<Long, BookingStatus> previousStatuses) {
+        long waitingDelta = 0;
+        long rejectedDelta = 0;
+        for (Booking booking : bookings) {
+            BookingStatus previousStatus = previousStatuses.get(booking.getId());
+            waitingDelta += statusDelta(BookingStatus.WAITING, previousStatus, booking.getStatus());
+            rejectedDelta += statusDelta(BookingStatus.REJECTED, previousStatus, booking.getStatus());
+        }
+        Set<Long> bookerIds = bookings.stream()
+                .filter(booking -> booking.getStatus() != previousStatuses.get(booking.getId()))
+                .map(booking -> booking.getBooker().getId())
+                .collect(Collectors.toSet());
+        bookingCountersRepository.lockForUpdate(bookerIds, List.of(ownerId));
+        if (waitingDelta != 0 || rejectedDelta != 0) {
+            bookingCountersRepository.changeStatusCounters(ownerId, BookingRole.OWNER, waitingDelta, rejectedDelta);
+        }
+        if (!bookerIds.isEmpty()) {
+            bookingCountersRepository.resetAll(bookerIds, BookingRole.BOOKER);
+        }
+    }
+
+    @Transactional
+    @Override
+    public void bookingsExpired(List<Booking> bookings) {
+        if (bookings.isEmpty()) return;
+        Set<Long> bookerIds = bookings.stream()
+                .map(booking -> booking.getBooker().getId())
+                .collect(Collectors.toSet());
+        Set<Long> ownerIds = bookings.stream()
+                .map(booking -> booking.getItem().getOwner().getId())
+                .collect(Collectors.toSet());
+        bookingCountersRepository.lockForUpdate(bookerIds, ownerIds);
+        bookingCountersRepository.resetAll(bookerIds, BookingRole.BOOKER);
+        bookingCountersRepository.resetAll(ownerIds, BookingRole.OWNER);
+    }
+
+    @Transactional
+    @Override
+    public void itemDeleted(Long itemId, Long ownerId) {
+        List<Long> bookerIds = bookingRepository.findBookerIdsForItem(itemId);
+        bookingCountersRepository.lockForUpdate(bookerIds, List.of(ownerId));
+        if (!bookerIds.isEmpty()) {
+            bookingCountersRepository.resetAll(bookerIds, BookingRole.BOOKER);
+        }
+        bookingCountersRepository.reset(ownerId, BookingRole.OWNER);
+    }
+
+    @Transactional
+    @Override
+    public void userDeleted(Long userId) {
+        // счетчики самого пользователя удаляются вместе с ним
+        List<Long> bookerIds = bookingRepository.findBookerIdsForOwner(userId);
+        List<Long> ownerIds = bookingRepository.findOwnerIdsForBooker(userId);
+        bookingCountersRepository.lockForUpdate(bookerIds, ownerIds);
+        if (!bookerIds.isEmpty()) {
+            bookingCountersRepository.resetAll(bookerIds, BookingRole.BOOKER);
+        }
+        if (!ownerIds.isEmpty()) {
+            bookingCountersRepository.resetAll(ownerIds, BookingRole.OWNER);
+        }
+    }
+
+    /*
+        Пересчет идет под блокировкой строки счетчиков, поэтому видит все бронирования,
+        изменения которых уже учтены или будут учтены в счетчиках, а два первых чтения
+        не пересчитывают дважды: второе дожидается первого и находит подсчитанную строку.
+     */
+    private BookingCounters countAndStore(Long userId, BookingRole role, LocalDateTime now) {
+        BookingCounters counters = bookingCountersRepository.lockForRecount(userId, role);
+        if (counters.getCountedAt() == null) {
+            recount(counters, now);
+        }
+        if (counters.getCountedAt().isBefore(now)) {
+            counters.setStarted(counters.getStarted() + countStarted(counters, now));
+            counters.setEnded(counters.getEnded() + countEnded(counters, now));
+            counters.setCountedAt(now);
+        }
+        return counters;
+    }
+
+    private void recount(BookingCounters counters, LocalDateTime now) {
+        BookingCounters counted = counters.getRole() == BookingRole.BOOKER
+                ? bookingRepository.countForBooker(counters.getUserId(), now)
+                : bookingRepository.countForOwner(counters.getUserId(), now);
+        counters.setTotal(counted.getTotal());
+        counters.setWaiting(counted.getWaiting());
+        counters.setRejected(counted.getRejected());
+        counters.setStarted(counted.getStarted());
+        counters.setEnded(counted.getEnded());
+        counters.setCountedAt(now);
+        log.debug("Пересчитаны счетчики бронирований пользователя {} в роли {}",
+                counters.getUserId(), counters.getRole());
+    }
+
+    // бронирования, начавшиеся после момента подсчета
+    private long countStarted(BookingCounters counters, LocalDateTime now) {
+        return counters.getRole() == BookingRole.BOOKER
+                ? bookingRepository.countStartedForBooker(counters.getUserId(), counters.getCountedAt(), now)
+                : bookingRepository.countStartedForOwner(counters.getUserId(), counters.getCountedAt(), now);
+    }
+
+    // бронирования, закончившиеся после момента подсчета
+    private long countEnded(BookingCounters counters, LocalDateTime now) {
+        return counters.getRole() == BookingRole.BOOKER
+                ? bookingRepository.countEndedForBooker(counters.getUserId(), counters.getCountedAt(), now)
+                : bookingRepository.countEndedForOwner(counters.getUserId(), counters.getCountedAt(), now);
+    }
+
+    private static long statusDelta(BookingStatus counted, BookingStatus previous, BookingStatus current) {
+        return (current == counted ? 1 : 0) - (previous == counted ? 1 : 0);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/*
+    Результат решения по одному бронированию из пакетного запроса:
+    либо бронирование с новым статусом, либо причина, по которой решение не применено.
+ */
+@Data
+@AllArgsConstructor
+public class BookingDecisionResultDto {
+    private Long bookingId;
+    private BookingDto booking;
+    private String error;
+
+    public static BookingDecisionResultDto applied(BookingDto booking) {
+        return new BookingDecisionResultDto(booking.getId(), booking, null);
+    }
+
+    public static BookingDecisionResultDto failed(Long bookingId, String error) {
+        return new BookingDecisionResultDto(bookingId, null, error);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.util.Optional;
+
+public enum BookingExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"), // по одному JSON-объекту в строке
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    BookingExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Optional<BookingExportFormat> fromString(String string) {
+        for (BookingExportFormat format : BookingExportFormat.values()) {
+            if (format.name().equalsIgnoreCase(string))
+                return Optional.of(format);
+        }
+        return Optional.empty();
+    }
+}
@@ -28,6 +28,7 @@ public class BookingMapper {
     }
 
     public static BookingShortDto toBookingShortDto(Booking booking) {
+        if (booking == null) return null;
         return new BookingShortDto(
                 booking.getId(), booking.getBooker().getId()
         );
@@ -34,5 +34,8 @@ public class Booking {
 
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
-    private BookingStatus status; // статус бронирования.
+    private BookingStatus status; // статус бронирования;
+
+    @Version
+    private Long version; // версия строки, по ней обнаруживаются параллельные изменения.
 }
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+    Счетчики бронирований пользователя в роли арендатора или владельца.
+    started и ended - число бронирований, начавшихся и закончившихся к моменту countedAt;
+    по ним без пересчета получаются прошедшие, текущие и будущие бронирования.
+    countedAt = null - счетчики не подсчитаны: строка уже есть, чтобы ее можно было заблокировать,
+    а значения будут пересчитаны при следующем чтении.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "booking_counters", schema = "public")
+public class BookingCounters {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    private BookingRole role;
+
+    @Column(name = "counted_at")
+    private LocalDateTime countedAt;
+
+    private long total;
+
+    private long waiting;
+
+    private long rejected;
+
+    private long started;
+
+    private long ended;
+
+    // для полного пересчета запросом: суммы по пустому набору строк приходят как null
+    public BookingCounters(Long total, Long waiting, Long rejected, Long started, Long ended) {
+        this.total = total;
+        this.waiting = waiting == null ? 0 : waiting;
+        this.rejected = rejected == null ? 0 : rejected;
+        this.started = started == null ? 0 : started;
+        this.ended = ended == null ? 0 : ended;
+    }
+}
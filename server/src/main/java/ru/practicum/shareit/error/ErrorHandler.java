@@ -2,6 +2,7 @@ package ru.practicum.shareit.error;
 
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -38,6 +39,25 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrentUpdateException(final ConcurrentUpdateException e) {
+        log.error("Конфликт параллельных изменений, {}", e.getMessage());
+        return new ErrorResponse(
+                e.getMessage()
+        );
+    }
+
+    // версия сущности не совпала при записи или транзакция проиграла взаимную блокировку
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrencyFailureException(final ConcurrencyFailureException e) {
+        log.error("Конфликт параллельных изменений, {}", e.getMessage());
+        return new ErrorResponse(
+                "данные были изменены другим запросом, повторите запрос"
+        );
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ErrorResponse handleAccessViolationException(final AccessViolationException e) {
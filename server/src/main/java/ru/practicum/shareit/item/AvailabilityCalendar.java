@@ -0,0 +1,108 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeRangeDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+    Занятость вещи по часам: бит i соответствует часу firstSlot + i, отсчитанному от начала эпохи.
+    Календарь не изменяется после создания: подтверждение бронирования дает новый календарь,
+    поэтому читать его можно без блокировок.
+ */
+final class AvailabilityCalendar {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final long firstSlot;
+    private final int slots;
+    private final BitSet busy;
+    private final long builtAt;
+
+    private AvailabilityCalendar(long firstSlot, int slots, BitSet busy, long builtAt) {
+        this.firstSlot = firstSlot;
+        this.slots = slots;
+        this.busy = busy;
+        this.builtAt = builtAt;
+    }
+
+    static AvailabilityCalendar of(long firstSlot, int slots, List<Booking> bookings) {
+        BitSet busy = new BitSet(slots);
+        for (Booking booking : bookings) {
+            occupy(busy, firstSlot, slots, booking);
+        }
+        return new AvailabilityCalendar(firstSlot, slots, busy, System.currentTimeMillis());
+    }
+
+    // час, в который попадает момент времени
+    static long slotOf(LocalDateTime date) {
+        return ChronoUnit.HOURS.between(EPOCH, date.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    // первый час, целиком лежащий после момента времени (или начинающийся в него)
+    static long slotAfter(LocalDateTime date) {
+        long slot = slotOf(date);
+        return date.equals(startOf(slot)) ? slot : slot + 1;
+    }
+
+    static LocalDateTime startOf(long slot) {
+        return EPOCH.plusHours(slot);
+    }
+
+    LocalDateTime getStart() {
+        return startOf(firstSlot);
+    }
+
+    LocalDateTime getEnd() {
+        return startOf(firstSlot + slots);
+    }
+
+    long getBuiltAt() {
+        return builtAt;
+    }
+
+    boolean covers(LocalDateTime from, LocalDateTime to) {
+        return slotOf(from) >= firstSlot && slotAfter(to) <= firstSlot + slots;
+    }
+
+    AvailabilityCalendar withBooking(Booking booking) {
+        BitSet copy = (BitSet) busy.clone();
+        occupy(copy, firstSlot, slots, booking);
+        return new AvailabilityCalendar(firstSlot, slots, copy, builtAt);
+    }
+
+    // периоды обрезаются по границам запроса, если они не совпадают с началом часа
+    ItemAvailabilityDto toDto(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<TimeRangeDto> free = new ArrayList<>();
+        List<TimeRangeDto> busyRanges = new ArrayList<>();
+        int first = (int) (slotOf(from) - firstSlot);
+        int last = (int) (slotAfter(to) - firstSlot);
+        int index = first;
+        while (index < last) {
+            boolean isBusy = busy.get(index);
+            int next = Math.min(isBusy ? busy.nextClearBit(index) : nextSetBit(index), last);
+            LocalDateTime start = index == first ? from : startOf(firstSlot + index);
+            LocalDateTime end = next == last ? to : startOf(firstSlot + next);
+            (isBusy ? busyRanges : free).add(new TimeRangeDto(start, end));
+            index = next;
+        }
+        return new ItemAvailabilityDto(itemId, from, to, free, busyRanges);
+    }
+
+    private int nextSetBit(int index) {
+        int next = busy.nextSetBit(index);
+        return next < 0 ? slots : next;
+    }
+
+    private static void occupy(BitSet busy, long firstSlot, int slots, Booking booking) {
+        long from = Math.max(slotOf(booking.getStartDate()) - firstSlot, 0);
+        long to = Math.min(slotAfter(booking.getEndDate()) - firstSlot, slots);
+        if (from < to) {
+            busy.set((int) from, (int) to);
+        }
+    }
+}
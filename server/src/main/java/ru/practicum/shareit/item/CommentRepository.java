@@ -1,18 +1,46 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
-import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+/*
+    Комментарии вещи читаются от новых к старым по (created, id) - индекс comments_item_created_id_idx.
+ */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = {"author"})
     @Query("select comment " +
            "from Comment comment " +
-           "where comment.item in ?1 " +
-           "order by comment.created DESC")
-    List<Comment> findCommentsFor(List<Item> items);
+           "where comment.item.id = ?1 " +
+           "order by comment.created DESC, comment.id DESC")
+    List<Comment> findLatestFor(Long itemId, Pageable limit);
 
-    List<Comment> findByItem_Id(Long itemId);
+    // следующая страница начинается сразу после комментария с указанными (created, id)
+    @EntityGraph(attributePaths = {"author"})
+    @Query("select comment " +
+           "from Comment comment " +
+           "where comment.item.id = ?1 and (comment.created, comment.id) < (?2, ?3) " +
+           "order by comment.created DESC, comment.id DESC")
+    List<Comment> findForItemBefore(Long itemId, LocalDateTime created, Long id, Pageable limit);
+
+    // не больше limit последних комментариев каждой вещи
+    @Query(value = "select id from (" +
+                   "select id, row_number() over (partition by item_id order by create_date desc, id desc) as rn " +
+                   "from comments where item_id in ?1" +
+                   ") latest where rn <= ?2",
+           nativeQuery = true)
+    List<Long> findLatestIdsFor(Collection<Long> itemIds, int limit);
+
+    @EntityGraph(attributePaths = {"author"})
+    @Query("select comment " +
+           "from Comment comment " +
+           "where comment.id in ?1 " +
+           "order by comment.created DESC, comment.id DESC")
+    List<Comment> findAllWithAuthorById(Collection<Long> ids);
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/*
+    Срок жизни записи Caffeine, который задает само значение: deadline возвращает момент
+    (миллисекунды от эпохи), после которого запись не выдается. Срок пересчитывается при записи
+    и замене значения, чтение его не продлевает.
+ */
+final class DeadlineExpiry<K, V> implements Expiry<K, V> {
+
+    private final ToLongFunction<V> deadline;
+
+    DeadlineExpiry(ToLongFunction<V> deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadline.applyAsLong(value) - System.currentTimeMillis()));
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
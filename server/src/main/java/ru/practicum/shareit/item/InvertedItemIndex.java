@@ -0,0 +1,225 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/*
+    Индекс доступных вещей в памяти. Каждая сохраненная версия вещи получает новый номер документа
+    в конце, старая помечается удаленной, поэтому списки номеров только дописываются. Удаленные
+    документы занимают место до перестроения индекса.
+
+    Подстрока ищется по самой редкой из своих триграмм, найденные документы проверяются сравнением
+    текста, как в поиске по базе. Выше в выдаче вещи, в названии которых все слова запроса
+    встречаются целиком (по спискам слов названия), затем совпадения в названии, затем в описании.
+    Класс не потокобезопасен.
+ */
+final class InvertedItemIndex {
+    static final int MIN_QUERY_LENGTH = 3;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt((Hit hit) -> hit.score)
+            .reversed()
+            .thenComparingLong(hit -> hit.id);
+
+    private final Map<Long, PostingList> trigrams = new HashMap<>();
+    private final Map<String, PostingList> nameWords = new HashMap<>();
+
+    // документы; у удаленного документа names[doc] == null
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] descriptions = new String[1024];
+    private long[] requestIds = new long[1024]; // 0 - без запроса
+    private int documents;
+    private int live;
+
+    // номер действующего документа по id вещи, упорядочено по id
+    private long[] sortedIds = new long[1024];
+    private int[] sortedDocs = new int[1024];
+    private int idCount;
+
+    int size() {
+        return live;
+    }
+
+    int deleted() {
+        return documents - live;
+    }
+
+    // недоступная вещь удаляется из индекса
+    void put(ItemDto item) {
+        remove(item.getId());
+        if (!Boolean.TRUE.equals(item.getAvailable())) return;
+
+        int doc = documents++;
+        if (doc == ids.length) {
+            int capacity = doc * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            requestIds = Arrays.copyOf(requestIds, capacity);
+        }
+        ids[doc] = item.getId();
+        names[doc] = item.getName() == null ? "" : item.getName();
+        descriptions[doc] = item.getDescription();
+        requestIds[doc] = item.getRequestId() == null ? 0 : item.getRequestId();
+        live++;
+
+        Set<Long> docTrigrams = new HashSet<>();
+        addTrigrams(names[doc], docTrigrams);
+        addTrigrams(descriptions[doc], docTrigrams);
+        for (Long trigram : docTrigrams) {
+            trigrams.computeIfAbsent(trigram, key -> new PostingList()).add(doc);
+        }
+        for (String word : words(names[doc])) {
+            nameWords.computeIfAbsent(word, key -> new PostingList()).add(doc);
+        }
+        mapId(item.getId(), doc);
+    }
+
+    void remove(Long itemId) {
+        int position = Arrays.binarySearch(sortedIds, 0, idCount, itemId);
+        if (position < 0) return;
+        int doc = sortedDocs[position];
+        if (names[doc] != null) {
+            names[doc] = null;
+            descriptions[doc] = null;
+            live--;
+        }
+    }
+
+    void trim() {
+        trigrams.values().forEach(PostingList::trim);
+        nameWords.values().forEach(PostingList::trim);
+    }
+
+    // запрос короче MIN_QUERY_LENGTH индекс не обслуживает
+    List<ItemDto> search(String text, int from, int size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        Set<Long> queryTrigrams = new HashSet<>();
+        addTrigrams(query, queryTrigrams);
+        PostingList rarest = null;
+        for (Long trigram : queryTrigrams) {
+            PostingList postings = trigrams.get(trigram);
+            if (postings == null) return List.of();
+            if (rarest == null || postings.size() < rarest.size()) {
+                rarest = postings;
+            }
+        }
+        if (rarest == null) return List.of();
+
+        List<PostingList.Cursor> wordCursors = new ArrayList<>();
+        for (String word : words(query)) {
+            PostingList postings = nameWords.get(word);
+            if (postings == null) {
+                wordCursors = null;
+                break;
+            }
+            wordCursors.add(postings.cursor());
+        }
+
+        int limit = from + size;
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        PostingList.Cursor candidates = rarest.cursor();
+        for (int doc = candidates.next(); doc != PostingList.END; doc = candidates.next()) {
+            if (names[doc] == null) continue;
+            boolean inName = containsIgnoreCase(names[doc], text);
+            boolean inDescription = containsIgnoreCase(descriptions[doc], text);
+            if (!inName && !inDescription) continue;
+
+            int score = (inName ? 2 : 0) + (inDescription ? 1 : 0);
+            if (wordCursors != null && !wordCursors.isEmpty() && allContain(wordCursors, doc)) {
+                score += 4;
+            }
+            top.add(new Hit(doc, ids[doc], score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        List<ItemDto> result = new ArrayList<>();
+        for (int i = from; i < hits.size(); i++) {
+            int doc = hits.get(i).doc;
+            result.add(new ItemDto(ids[doc], names[doc], descriptions[doc], true,
+                    requestIds[doc] == 0 ? null : requestIds[doc]));
+        }
+        return result;
+    }
+
+    // кандидаты идут по возрастанию номеров, поэтому курсоры списков слов только продвигаются вперед
+    private static boolean allContain(List<PostingList.Cursor> cursors, int doc) {
+        boolean all = true;
+        for (PostingList.Cursor cursor : cursors) {
+            all &= cursor.advanceTo(doc) == doc;
+        }
+        return all;
+    }
+
+    private void mapId(long itemId, int doc) {
+        int position = Arrays.binarySearch(sortedIds, 0, idCount, itemId);
+        if (position >= 0) {
+            sortedDocs[position] = doc;
+            return;
+        }
+        // новые вещи обычно получают наибольший id и добавляются в конец без сдвига
+        position = -position - 1;
+        if (idCount == sortedIds.length) {
+            sortedIds = Arrays.copyOf(sortedIds, idCount * 2);
+            sortedDocs = Arrays.copyOf(sortedDocs, idCount * 2);
+        }
+        System.arraycopy(sortedIds, position, sortedIds, position + 1, idCount - position);
+        System.arraycopy(sortedDocs, position, sortedDocs, position + 1, idCount - position);
+        sortedIds[position] = itemId;
+        sortedDocs[position] = doc;
+        idCount++;
+    }
+
+    // три символа в нижнем регистре, упакованные в long
+    private static void addTrigrams(String text, Set<Long> result) {
+        if (text == null) return;
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + MIN_QUERY_LENGTH <= lower.length(); i++) {
+            result.add(((long) lower.charAt(i) << 32) | ((long) lower.charAt(i + 1) << 16) | lower.charAt(i + 2));
+        }
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> result = new HashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsIgnoreCase(String text, String query) {
+        if (text == null) return false;
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) return true;
+        }
+        return false;
+    }
+
+    private static final class Hit {
+        private final int doc;
+        private final long id;
+        private final int score;
+
+        private Hit(int doc, long id, int score) {
+            this.doc = doc;
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
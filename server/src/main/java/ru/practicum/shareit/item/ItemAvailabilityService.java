@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+
+/*
+    Календарь занятости вещи подтвержденными бронированиями. Календари ближайших месяцев
+    хранятся в памяти по часам и обновляются при подтверждении и отклонении бронирований,
+    так что запрос календаря обычно не обращается к базе.
+ */
+@Transactional(readOnly = true)
+public interface ItemAvailabilityService {
+
+    // from и to могут быть null: тогда берется период с текущего момента на 30 дней
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    // изменения применяются к календарю после фиксации текущей транзакции
+    void bookingApproved(Booking booking);
+
+    // подтвержденное бронирование больше не занимает вещь или вещь удалена: календарь строится заново
+    void invalidate(Long itemId);
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.error.InvalidRequestParamsException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Календарь вещи строится одним запросом подтвержденных бронирований на horizonDays вперед
+    и дальше меняется в памяти. Изменения, сделанные на других узлах или каскадным удалением,
+    подхватываются, когда календарь устаревает (ttl). Запросы за пределами хранимого периода
+    обслуживаются отдельным запросом к базе без кэширования. Календари хранятся в Caffeine,
+    не больше maxItems. Метрики: /actuator/metrics/cache.* с тегом cache=shareit.items.availability
+ */
+@Service
+public class ItemAvailabilityServiceImpl implements ItemAvailabilityService {
+
+    static final int DEFAULT_PERIOD_DAYS = 30;
+    static final int MAX_PERIOD_DAYS = 366;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final int horizonDays;
+    private final Cache<Long, AvailabilityCalendar> calendars;
+    // растет при каждом изменении календарей: построенный календарь не кэшируется, если за время чтения
+    // из базы какое-то бронирование было подтверждено или отклонено
+    private final AtomicLong changes = new AtomicLong();
+
+    public ItemAvailabilityServiceImpl(ItemRepository itemRepository,
+                                       BookingRepository bookingRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${shareit.items.availability.horizon-days:180}") int horizonDays,
+                                       @Value("${shareit.items.availability.ttl:300000}") long ttl,
+                                       @Value("${shareit.items.availability.max-items:20000}") int maxItems) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.horizonDays = horizonDays;
+        // замена календаря после подтверждения бронирования сохраняет его срок: он отсчитывается от построения
+        this.calendars = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfter(new DeadlineExpiry<Long, AvailabilityCalendar>(calendar -> calendar.getBuiltAt() + ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, calendars, "shareit.items.availability");
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from == null ? LocalDateTime.now() : from;
+        LocalDateTime end = to == null ? start.plusDays(DEFAULT_PERIOD_DAYS) : to;
+        if (!end.isAfter(start)) {
+            throw new InvalidRequestParamsException("конец периода должен быть после его начала");
+        }
+        if (end.isAfter(start.plusDays(MAX_PERIOD_DAYS))) {
+            throw new InvalidRequestParamsException(
+                    String.format("период не может быть длиннее %d дней", MAX_PERIOD_DAYS)
+            );
+        }
+
+        AvailabilityCalendar calendar = calendars.getIfPresent(itemId);
+        if (calendar == null) {
+            calendar = build(itemId);
+        }
+        if (!calendar.covers(start, end)) {
+            calendar = load(itemId, AvailabilityCalendar.slotOf(start),
+                    (int) (AvailabilityCalendar.slotAfter(end) - AvailabilityCalendar.slotOf(start)));
+        }
+        return calendar.toDto(itemId, start, end);
+    }
+
+    @Override
+    public void bookingApproved(Booking booking) {
+        afterCommit(() -> calendars.asMap().computeIfPresent(
+                booking.getItem().getId(), (itemId, calendar) -> calendar.withBooking(booking)
+        ));
+    }
+
+    @Override
+    public void invalidate(Long itemId) {
+        afterCommit(() -> calendars.invalidate(itemId));
+    }
+
+    private AvailabilityCalendar build(Long itemId) {
+        long stamp = changes.get();
+        // день назад, чтобы календарь на сегодня тоже обслуживался из памяти
+        long firstSlot = AvailabilityCalendar.slotOf(LocalDateTime.now().minusDays(1));
+        AvailabilityCalendar calendar = load(itemId, firstSlot, (horizonDays + 1) * 24);
+        // изменение, применяемое к кэшу, сначала увеличивает счетчик, а операции с одним ключом
+        // в Caffeine выполняются по очереди: изменение либо отменит запись, либо применится к ней
+        calendars.asMap().compute(itemId, (id, cached) -> changes.get() == stamp ? calendar : cached);
+        return calendar;
+    }
+
+    private AvailabilityCalendar load(Long itemId, long firstSlot, int slots) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new EntryNotFoundException(String.format("вещь с id = %d не найдена", itemId));
+        }
+        List<Booking> approved = bookingRepository.findForItemsBetween(
+                List.of(itemId),
+                AvailabilityCalendar.startOf(firstSlot),
+                AvailabilityCalendar.startOf(firstSlot + slots),
+                EnumSet.of(BookingStatus.APPROVED)
+        );
+        return AvailabilityCalendar.of(firstSlot, slots, approved);
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable counted = () -> {
+            changes.incrementAndGet();
+            change.run();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counted.run();
+                }
+            });
+        } else {
+            counted.run();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.Collection;
+
+/*
+    Поддерживает у вещи ссылки на последнее и следующее подтвержденные бронирования,
+    чтобы список вещей владельца не пересчитывал их по таблице бронирований.
+ */
+@Transactional(readOnly = true)
+public interface ItemBookingPointerService {
+
+    @Transactional
+    void bookingApproved(Booking booking);
+
+    @Transactional
+    void bookingRejected(Booking booking);
+
+    // после смены статусов нескольких бронирований одним запросом
+    @Transactional
+    void bookingsChanged(Collection<Long> itemIds);
+
+    // переносит ссылки у вещей, следующее бронирование которых уже началось
+    @Transactional
+    void rollForward();
+
+    // сверяет ссылки всех вещей с таблицей бронирований, возвращает число исправленных вещей;
+    // страницы вещей фиксируются в отдельных транзакциях
+    @Transactional(propagation = Propagation.SUPPORTS)
+    int rebuild();
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ItemBookingPointerServiceImpl implements ItemBookingPointerService {
+
+    private static final int REBUILD_PAGE_SIZE = 100;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    /*
+        Ссылки меняются запросом, а не через сущность: версия вещи остается прежней,
+        и подтверждение не мешает параллельной правке вещи владельцем.
+     */
+    @Transactional
+    @Override
+    public void bookingApproved(Booking booking) {
+        Item item = booking.getItem();
+        boolean changesPointers = booking.getStartDate().isAfter(LocalDateTime.now())
+                ? item.getNextBooking() == null || booking.getStartDate().isBefore(item.getNextBooking().getStartDate())
+                : item.getLastBooking() == null || booking.getStartDate().isAfter(item.getLastBooking().getStartDate());
+        if (changesPointers) {
+            itemRepository.refreshBookingPointers(List.of(item.getId()), LocalDateTime.now());
+        }
+    }
+
+    @Transactional
+    @Override
+    public void bookingRejected(Booking booking) {
+        Item item = booking.getItem();
+        if (isSameBooking(item.getNextBooking(), booking) || isSameBooking(item.getLastBooking(), booking)) {
+            itemRepository.refreshBookingPointers(List.of(item.getId()), LocalDateTime.now());
+        }
+    }
+
+    @Transactional
+    @Override
+    public void bookingsChanged(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) return;
+        itemRepository.refreshBookingPointers(itemIds, LocalDateTime.now());
+    }
+
+    // UPDATE не меняет версию вещи, поэтому перенос ссылок не мешает параллельной правке вещи владельцем
+    @Transactional
+    @Override
+    @Scheduled(fixedDelayString = "${shareit.items.booking-pointers.roll-forward-delay:60000}",
+            initialDelayString = "${shareit.items.booking-pointers.roll-forward-delay:60000}")
+    public void rollForward() {
+        List<Long> itemIds = itemRepository.findWithStartedNextBooking(LocalDateTime.now()).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        if (!itemIds.isEmpty()) {
+            log.debug("Перенос ссылок на бронирования для {} вещей", itemIds.size());
+            itemRepository.refreshBookingPointers(itemIds, LocalDateTime.now());
+        }
+    }
+
+    /*
+        Вещи сверяются страницами по id, каждая страница - в своей транзакции, после которой
+        контекст персистентности очищается: память не растет с числом вещей, а строки вещей
+        не остаются заблокированными до конца задания. Расходящиеся ссылки исправляются
+        одним UPDATE на страницу без изменения версии вещи.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    @Scheduled(cron = "${shareit.items.booking-pointers.rebuild-cron:0 0 3 * * *}")
+    public int rebuild() {
+        AtomicInteger fixed = new AtomicInteger();
+        Long lastId = 0L;
+        while (lastId != null) {
+            Long afterId = lastId;
+            lastId = transactionTemplate.execute(status -> rebuildPage(afterId, fixed));
+            entityManager.clear();
+        }
+        if (fixed.get() > 0) {
+            log.warn("Ссылки на бронирования исправлены у {} вещей", fixed.get());
+        }
+        return fixed.get();
+    }
+
+    // null - вещей после afterId не осталось
+    private Long rebuildPage(Long afterId, AtomicInteger fixed) {
+        List<Item> items = itemRepository.findByIdGreaterThan(
+                afterId, PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"))
+        );
+        if (items.isEmpty()) return null;
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Booking> nextBookings = findNextBookings(items, now);
+        Map<Long, Booking> lastBookings = findLastBookings(items, now);
+        List<Long> drifted = items.stream()
+                .filter(item -> !isSameBooking(item.getNextBooking(), nextBookings.get(item.getId())) ||
+                        !isSameBooking(item.getLastBooking(), lastBookings.get(item.getId())))
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        if (!drifted.isEmpty()) {
+            itemRepository.refreshBookingPointers(drifted, now);
+            fixed.addAndGet(drifted.size());
+        }
+        return items.get(items.size() - 1).getId();
+    }
+
+    private Map<Long, Booking> findNextBookings(List<Item> items, LocalDateTime now) {
+        return bookingRepository.findNextBookingsFor(ids(items), now).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+    }
+
+    private Map<Long, Booking> findLastBookings(List<Item> items, LocalDateTime now) {
+        return bookingRepository.findLastBookingsFor(ids(items), now).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    private static boolean isSameBooking(Booking first, Booking second) {
+        if (first == null || second == null) return first == second;
+        return first.getId().equals(second.getId());
+    }
+}
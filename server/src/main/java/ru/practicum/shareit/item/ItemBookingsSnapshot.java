@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+/*
+    Последнее и следующее бронирование вещи для ее владельца. Снимок верен до начала следующего
+    бронирования: после этого оно становится последним.
+ */
+final class ItemBookingsSnapshot {
+    private final Long lastBookingId;
+    private final Long lastBookerId;
+    private final Long nextBookingId;
+    private final Long nextBookerId;
+    private final LocalDateTime validUntil;
+
+    ItemBookingsSnapshot(Booking lastBooking, Booking nextBooking) {
+        this.lastBookingId = lastBooking != null ? lastBooking.getId() : null;
+        this.lastBookerId = lastBooking != null ? lastBooking.getBooker().getId() : null;
+        this.nextBookingId = nextBooking != null ? nextBooking.getId() : null;
+        this.nextBookerId = nextBooking != null ? nextBooking.getBooker().getId() : null;
+        this.validUntil = nextBooking != null ? nextBooking.getStartDate() : null;
+    }
+
+    // null - снимок не устаревает со временем
+    LocalDateTime getValidUntil() {
+        return validUntil;
+    }
+
+    BookingShortDto getLastBooking() {
+        return lastBookingId == null ? null : new BookingShortDto(lastBookingId, lastBookerId);
+    }
+
+    BookingShortDto getNextBooking() {
+        return nextBookingId == null ? null : new BookingShortDto(nextBookingId, nextBookerId);
+    }
+}
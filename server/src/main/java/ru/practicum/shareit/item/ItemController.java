@@ -1,20 +1,28 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentInDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static ru.practicum.shareit.booking.BookingController.NEXT_CURSOR_HEADER;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/items")
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemAvailabilityService itemAvailabilityService;
 
     @PostMapping
     public ItemDto createItem(
@@ -33,15 +41,6 @@ public class ItemController {
         return itemService.createCommentForItem(userId, itemId, comment);
     }
 
-    @GetMapping
-    public List<ItemDto> getAllUserItems(
-            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
-            @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "20") Integer size
-    ) {
-        return itemService.getAllItems(userId, from, size);
-    }
-
     @GetMapping(value = "/{itemId}")
     public ItemDto getUserItemById(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -50,6 +49,35 @@ public class ItemController {
         return itemService.getItemById(userId, itemId);
     }
 
+    @GetMapping(value = "/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getItemComments(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam(name = "size", defaultValue = "20") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        List<CommentDto> comments = itemService.getComments(
+                itemId, cursor == null ? null : CommentCursor.decode(cursor), size
+        );
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!comments.isEmpty() && comments.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, CommentCursor.after(comments.get(comments.size() - 1)).encode());
+        }
+        return response.body(comments);
+    }
+
+    @GetMapping(value = "/{itemId}/availability")
+    public ItemAvailabilityDto getItemAvailability(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return itemAvailabilityService.getAvailability(itemId, from, to);
+    }
+
     @GetMapping(value = "/search")
     public List<ItemDto> searchItemByName(
             @RequestHeader(value = "X-Sharer-User-Id") Long userId,
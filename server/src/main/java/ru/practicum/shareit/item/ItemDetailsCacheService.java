@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item;
+
+import java.util.function.Supplier;
+
+/*
+    Кэш карточек вещей в два уровня: снимок вещи с комментариями для всех пользователей
+    и отдельно последнее и следующее бронирование для владельца. Изменения применяются
+    после фиксации текущей транзакции.
+ */
+public interface ItemDetailsCacheService {
+
+    ItemSnapshot getItem(Long itemId, Supplier<ItemSnapshot> loader);
+
+    ItemBookingsSnapshot getBookings(Long itemId, Supplier<ItemBookingsSnapshot> loader);
+
+    // вещь изменена или удалена, добавлен комментарий
+    void itemChanged(Long itemId);
+
+    // изменились подтвержденные бронирования вещи
+    void bookingsChanged(Long itemId);
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+    Оба уровня хранятся в Caffeine и ограничены max-items записями, снимок вещи хранит не больше
+    ItemServiceImpl.EMBEDDED_COMMENTS комментариев. Снимок бронирований живет не дольше
+    начала следующего бронирования. Изменения, сделанные на других узлах, каскадным удалением
+    или сменой имени автора комментария, видны после истечения ttl.
+    Метрики: /actuator/metrics/cache.* с тегами cache=shareit.items.details и level=item или bookings
+ */
+@Service
+public class ItemDetailsCacheServiceImpl implements ItemDetailsCacheService {
+
+    static final String CACHE_NAME = "shareit.items.details";
+
+    private final Cache<Long, ItemSnapshot> items;
+    private final Cache<Long, ItemBookingsSnapshot> bookings;
+    private final boolean enabled;
+    // растут при каждой очистке уровня: загруженный во время изменения снимок не кэшируется
+    private final AtomicLong itemChanges = new AtomicLong();
+    private final AtomicLong bookingChanges = new AtomicLong();
+
+    public ItemDetailsCacheServiceImpl(MeterRegistry meterRegistry,
+                                       @Value("${shareit.items.details.cache.max-items:10000}") int maxItems,
+                                       @Value("${shareit.items.details.cache.ttl:300000}") long ttl) {
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        this.bookings = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfter(new DeadlineExpiry<Long, ItemBookingsSnapshot>(snapshot -> {
+                    long deadline = System.currentTimeMillis() + ttl;
+                    if (snapshot.getValidUntil() == null) return deadline;
+                    return Math.min(deadline,
+                            snapshot.getValidUntil().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }))
+                .recordStats()
+                .build();
+        this.enabled = maxItems > 0;
+        CaffeineCacheMetrics.monitor(meterRegistry, items, CACHE_NAME, "level", "item");
+        CaffeineCacheMetrics.monitor(meterRegistry, bookings, CACHE_NAME, "level", "bookings");
+    }
+
+    @Override
+    public ItemSnapshot getItem(Long itemId, Supplier<ItemSnapshot> loader) {
+        if (!enabled) return loader.get();
+        ItemSnapshot cached = items.getIfPresent(itemId);
+        if (cached != null) return cached;
+        long stamp = itemChanges.get();
+        ItemSnapshot snapshot = loader.get();
+        if (itemChanges.get() == stamp) {
+            items.put(itemId, snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public ItemBookingsSnapshot getBookings(Long itemId, Supplier<ItemBookingsSnapshot> loader) {
+        if (!enabled) return loader.get();
+        ItemBookingsSnapshot cached = bookings.getIfPresent(itemId);
+        if (cached != null) return cached;
+        long stamp = bookingChanges.get();
+        ItemBookingsSnapshot snapshot = loader.get();
+        if (bookingChanges.get() == stamp) {
+            bookings.put(itemId, snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void itemChanged(Long itemId) {
+        afterCommit(() -> {
+            itemChanges.incrementAndGet();
+            bookingChanges.incrementAndGet();
+            items.invalidate(itemId);
+            bookings.invalidate(itemId);
+        });
+    }
+
+    @Override
+    public void bookingsChanged(Long itemId) {
+        afterCommit(() -> {
+            bookingChanges.incrementAndGet();
+            bookings.invalidate(itemId);
+        });
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!enabled) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
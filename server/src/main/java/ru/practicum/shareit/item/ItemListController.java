@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+
+// список вещей владельца из сущностей (shareit.items.list.mode=ENTITIES); в режиме JSON его отдает ItemPageController
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/items")
+@ConditionalOnProperty(name = "shareit.items.list.mode", havingValue = "ENTITIES", matchIfMissing = true)
+public class ItemListController {
+
+    private final ItemService itemService;
+
+    @GetMapping
+    public List<ItemDto> getAllUserItems(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @RequestParam(name = "size", defaultValue = "20") Integer size
+    ) {
+        return itemService.getAllItems(userId, from, size);
+    }
+}
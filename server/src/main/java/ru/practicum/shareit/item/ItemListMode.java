@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item;
+
+// способ построения списка вещей владельца (GET /items), shareit.items.list.mode
+public enum ItemListMode {
+    ENTITIES, // сущности и ItemDto, ItemListController и ItemService.getAllItems
+    JSON      // весь ответ собирает один запрос с LATERAL и json_agg (только PostgreSQL), ItemPageController
+}
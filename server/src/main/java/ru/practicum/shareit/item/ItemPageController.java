@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// список вещей владельца, собранный базой (shareit.items.list.mode=JSON), пишется в ответ потоком
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/items")
+@ConditionalOnProperty(name = "shareit.items.list.mode", havingValue = "JSON")
+public class ItemPageController {
+
+    private final ItemPageService itemPageService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getAllUserItems(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+            @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @RequestParam(name = "size", defaultValue = "20") Integer size
+    ) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(itemPageService.getAllItems(userId, from, size));
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/*
+    Страница вещей владельца, собранная базой: по строке на вещь в порядке id, каждая строка -
+    JSON того же вида, что ItemDto из ItemService.getAllItems. Поток нужно закрыть.
+ */
+public interface ItemPageRepository {
+
+    Stream<String> streamOwnerPage(Long ownerId, long offset, int limit, LocalDateTime now, int comments);
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public class ItemPageRepositoryImpl implements ItemPageRepository {
+
+    /*
+        Бронирования выбираются так же, как в ItemServiceImpl: если следующее по ссылке уже началось,
+        последнее и следующее ищутся среди подтвержденных бронирований вещи, иначе берутся ссылки.
+        Условие pointer.start_date <= :now внутри LATERAL не зависит от строк бронирований,
+        поэтому для вещей со свежими ссылками подзапрос не выполняется.
+     */
+    private static final String JSON_QUERY =
+            "select json_build_object(" +
+            "'id', i.id, " +
+            "'name', i.name, " +
+            "'description', i.description, " +
+            "'available', coalesce(i.is_available, false), " +
+            "'lastBooking', case when pointer.start_date <= :now then actual_last.booking " +
+            "when stored_last.id is not null " +
+            "then json_build_object('id', stored_last.id, 'bookerId', stored_last.booker_id) end, " +
+            "'nextBooking', case when pointer.start_date <= :now then actual_next.booking " +
+            "when pointer.id is not null then json_build_object('id', pointer.id, 'bookerId', pointer.booker_id) end, " +
+            "'comments', coalesce(latest.comments, '[]'::json), " +
+            "'commentCount', i.comment_count, " +
+            "'requestId', i.request_id)::text " +
+            "from (select * from items where owner_id = :ownerId order by id limit :limit offset :offset) i " +
+            "left join bookings pointer on pointer.id = i.next_booking_id " +
+            "left join bookings stored_last on stored_last.id = i.last_booking_id " +
+            "left join lateral (" +
+            "select json_build_object('id', b.id, 'bookerId', b.booker_id) as booking from bookings b " +
+            "where pointer.start_date <= :now and b.item_id = i.id and b.status = 'APPROVED' and b.start_date < :now " +
+            "order by b.start_date desc, b.id desc limit 1" +
+            ") actual_last on true " +
+            "left join lateral (" +
+            "select json_build_object('id', b.id, 'bookerId', b.booker_id) as booking from bookings b " +
+            "where pointer.start_date <= :now and b.item_id = i.id and b.status = 'APPROVED' and b.start_date > :now " +
+            "order by b.start_date, b.id limit 1" +
+            ") actual_next on true " +
+            "left join lateral (" +
+            "select json_agg(json_build_object(" +
+            "'id', c.id, 'text', c.text, 'authorName', u.name, 'created', c.create_date" +
+            ") order by c.create_date desc, c.id desc) as comments " +
+            "from (select * from comments where item_id = i.id order by create_date desc, id desc limit :comments) c " +
+            "join users u on u.id = c.author_id" +
+            ") latest on true " +
+            "order by i.id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ItemPageRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Stream<String> streamOwnerPage(Long ownerId, long offset, int limit, LocalDateTime now, int comments) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("ownerId", ownerId)
+                .addValue("offset", offset)
+                .addValue("limit", limit)
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("comments", comments);
+        return jdbcTemplate.queryForStream(
+                JSON_QUERY,
+                parameters,
+                (row, rowNum) -> row.getString(1)
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// сборка списка вещей владельца в базе, только в режиме shareit.items.list.mode=JSON (см. ItemListMode)
+public interface ItemPageService {
+
+    StreamingResponseBody getAllItems(Long userId, Integer from, Integer size);
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+    Строки JSON из базы пишутся в ответ как есть, без сущностей и ItemDto.
+    Как и выгрузка бронирований, тело пишется после выхода из контроллера в собственной транзакции для чтения.
+ */
+@Service
+@ConditionalOnProperty(name = "shareit.items.list.mode", havingValue = "JSON")
+public class ItemPageServiceImpl implements ItemPageService {
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemPageServiceImpl(UserRepository userRepository,
+                               ItemRepository itemRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody getAllItems(Long userId, Integer from, Integer size) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntryNotFoundException(
+                    String.format("пользователь с указанным id (%d) не существует", userId)
+            );
+        }
+        long offset = (long) (from / size) * size;
+        LocalDateTime now = LocalDateTime.now();
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> rows = itemRepository.streamOwnerPage(
+                    userId, offset, size, now, ItemServiceImpl.EMBEDDED_COMMENTS
+            )) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writeArray(rows.iterator(), writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeArray(Iterator<String> rows, Writer writer) throws IOException {
+        writer.write('[');
+        if (rows.hasNext()) {
+            writer.write(rows.next());
+            while (rows.hasNext()) {
+                writer.write(',');
+                writer.write(rows.next());
+            }
+        }
+        writer.write(']');
+    }
+}
@@ -1,27 +1,97 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    Page<Item> findAllByOwner_Id(Long userId, PageRequest pageRequest);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemSearchRepository, ItemPageRepository {
+    @EntityGraph(attributePaths = {"lastBooking", "nextBooking"})
+    Slice<Item> findAllByOwner_Id(Long userId, PageRequest pageRequest);
 
-    @Query("select i from Item i " +
-           "where i.available = TRUE and " +
-           "(upper(i.name) like upper(concat('%', ?1, '%')) " +
-           "or upper(i.description) like upper(concat('%', ?1, '%')))")
-    Page<Item> searchAvailable(String text, PageRequest of);
+    List<Item> findByIdGreaterThan(Long id, Pageable pageable);
 
-    @Query("select i from Item i " +
-           "where i.request in ?1 " +
+    @Query("select item " +
+           "from Item item join item.nextBooking next " +
+           "where next.startDate <= ?1")
+    List<Item> findWithStartedNextBooking(LocalDateTime now);
+
+    /*
+        Строки вещей блокируются до конца транзакции перед проверкой занятых периодов, в порядке id,
+        чтобы пакеты не блокировали друг друга. Параллельная проверка той же вещи ждет фиксации и затем
+        видит новые бронирования. Версия вещи не меняется: бронирования других периодов и правка вещи
+        владельцем не завершаются конфликтом версий.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select item from Item item where item.id in ?1 order by item.id")
+    List<Item> lockAllById(Collection<Long> itemIds);
+
+    /*
+        Ссылки на бронирования пересчитываются одним UPDATE для всех переданных вещей:
+        следующее - самое раннее из будущих подтвержденных, последнее - самое позднее из начавшихся,
+        при равном начале берется меньший (для следующего) или больший (для последнего) id.
+     */
+    @Modifying
+    @Query("update Item item set " +
+           "item.nextBooking = (select min(next.id) from Booking next " +
+           "where next.item = item and next.status = 'APPROVED' and next.startDate = " +
+           "(select min(booking.startDate) from Booking booking " +
+           "where booking.item = item and booking.status = 'APPROVED' and booking.startDate > ?2)), " +
+           "item.lastBooking = (select max(last.id) from Booking last " +
+           "where last.item = item and last.status = 'APPROVED' and last.startDate = " +
+           "(select max(booking.startDate) from Booking booking " +
+           "where booking.item = item and booking.status = 'APPROVED' and booking.startDate < ?2)) " +
+           "where item.id in ?1")
+    int refreshBookingPointers(Collection<Long> itemIds, LocalDateTime now);
+
+    /*
+        Счетчик комментариев меняется запросом, а не через сущность: UPDATE не увеличивает версию вещи
+        и не перезаписывает счетчик значением, прочитанным до параллельно добавленного комментария.
+     */
+    @Modifying
+    @Query("update Item item set item.commentCount = item.commentCount + 1 where item.id = ?1")
+    int incrementCommentCount(Long itemId);
+
+    // комментарии удаляются каскадно вместе с автором
+    @Modifying
+    @Query("update Item item set item.commentCount = item.commentCount - " +
+           "(select count(comment) from Comment comment where comment.item = item and comment.author.id = ?1) " +
+           "where item.id in (select comment.item.id from Comment comment where comment.author.id = ?1)")
+    int decrementCommentCountsForAuthor(Long authorId);
+
+    /*
+        Поиск вещей - в ItemSearchRepository.
+        Списки вещей без бронирований и комментариев выбираются сразу в ItemDto:
+        в ответ попадают только нужные столбцы, сущности не загружаются в контекст.
+     */
+    // постраничное чтение по id для построения индекса поиска
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+           "from Item i left join i.request r " +
+           "where i.available = TRUE and i.id > ?1 " +
+           "order by i.id")
+    List<ItemDto> findAvailableAfter(Long id, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+           "from Item i join i.request r " +
+           "where r in ?1 " +
            "order by i.id ASC")
-    List<Item> findItemsFor(List<ItemRequest> requests);
+    List<ItemDto> findItemsFor(List<ItemRequest> requests);
 
-    List<Item> findAllByRequest_Id(Long requestId);
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+           "from Item i join i.request r " +
+           "where r.id = ?1 " +
+           "order by i.id ASC")
+    List<ItemDto> findAllByRequest_Id(Long requestId);
 }
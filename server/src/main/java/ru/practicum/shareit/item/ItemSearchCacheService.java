@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+    Кэш страниц поиска вещей по ключу (текст в нижнем регистре, смещение, размер страницы).
+    Страница удаляется из кэша, когда вещь, которая могла в нее попасть до или после изменения,
+    создана, изменена или удалена.
+ */
+public interface ItemSearchCacheService {
+
+    List<ItemDto> search(String text, int from, int size, Supplier<List<ItemDto>> loader);
+
+    // before - вещь до изменения (null при создании), after - после (null при удалении);
+    // кэш очищается после фиксации текущей транзакции
+    void itemChanged(ItemDto before, ItemDto after);
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+    Страницы хранятся в Caffeine: вытеснение W-TinyLFU, поэтому редкие запросы не вытесняют популярные,
+    и срок жизни ttl с момента записи. Изменения, сделанные на других узлах или каскадным удалением,
+    видны после истечения ttl.
+    Метрики: /actuator/metrics/cache.* с тегом cache=shareit.items.search
+    и /actuator/metrics/shareit.items.search.cache.*
+ */
+@Service
+public class ItemSearchCacheServiceImpl implements ItemSearchCacheService {
+
+    static final String CACHE_NAME = "shareit.items.search";
+
+    private final Cache<Key, List<ItemDto>> cache;
+    private final boolean enabled;
+    // растет при каждой очистке: результат, загруженный во время изменения вещей, не кэшируется
+    private final AtomicLong changes = new AtomicLong();
+    private final Counter invalidated;
+
+    public ItemSearchCacheServiceImpl(MeterRegistry meterRegistry,
+                                      @Value("${shareit.items.search.cache.max-size:10000}") int maxSize,
+                                      @Value("${shareit.items.search.cache.ttl:60000}") long ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        this.enabled = maxSize > 0;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.invalidated = Counter.builder("shareit.items.search.cache.invalidated")
+                .description("Страницы, удаленные из кэша из-за изменения вещей")
+                .register(meterRegistry);
+        Gauge.builder("shareit.items.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        if (!enabled) return loader.get();
+        // смещение приводится к началу страницы, как в PageRequest.of(from / size, size)
+        Key key = new Key(text.toLowerCase(Locale.ROOT), from / size * size, size);
+        List<ItemDto> cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+        long stamp = changes.get();
+        List<ItemDto> items = List.copyOf(loader.get());
+        if (changes.get() == stamp) {
+            cache.put(key, items);
+        }
+        return items;
+    }
+
+    @Override
+    public void itemChanged(ItemDto before, ItemDto after) {
+        if (!enabled || !changesSearch(before, after)) return;
+        Runnable invalidate = () -> {
+            changes.incrementAndGet();
+            int removed = 0;
+            for (ItemDto item : new ItemDto[]{before, after}) {
+                if (item != null && Boolean.TRUE.equals(item.getAvailable())) {
+                    removed += invalidate(searchText(item));
+                }
+            }
+            invalidated.increment(removed);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        } else {
+            invalidate.run();
+        }
+    }
+
+    // удаляет запросы, в выдачу которых вещь с таким текстом могла попасть; возвращает их число
+    private int invalidate(String text) {
+        int removed = 0;
+        for (Key key : cache.asMap().keySet()) {
+            if (mayMatch(key.text, text) && cache.asMap().remove(key) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /*
+        Совпадение при любом способе поиска: подстрокой, каждым словом (полнотекстовый поиск ищет
+        слова по началу) или сходством по триграммам.
+     */
+    static boolean mayMatch(String query, String text) {
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        if (lowerText.contains(query)) return true;
+        boolean allWords = true;
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            allWords &= lowerText.contains(word);
+        }
+        return allWords || TrigramSimilarity.wordSimilarity(query, text)
+                >= ItemSearchRepositoryImpl.WORD_SIMILARITY_THRESHOLD;
+    }
+
+    // в поиске участвуют только название, описание и доступность
+    private static boolean changesSearch(ItemDto before, ItemDto after) {
+        if (before == null || after == null) return true;
+        return !Objects.equals(before.getName(), after.getName())
+                || !Objects.equals(before.getDescription(), after.getDescription())
+                || !Objects.equals(before.getAvailable(), after.getAvailable());
+    }
+
+    private static String searchText(ItemDto item) {
+        return item.getName() + " " + (item.getDescription() == null ? "" : item.getDescription());
+    }
+
+    private static final class Key {
+        private final String text;
+        private final int from;
+        private final int size;
+
+        private Key(String text, int from, int size) {
+            this.text = text;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return from == key.from && size == key.size && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, from, size);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item;
+
+// способ поиска вещей в базе, shareit.items.search.mode
+// TRIGRAM и FULL_TEXT включаются явно: их индексы (schema-postgresql-<режим>.sql) замедляют запись вещей
+public enum ItemSearchMode {
+    LIKE,      // подстрока без учета регистра, по умолчанию
+    TRIGRAM,   // подстрока и опечатки, pg_trgm и GIN-индекс (PostgreSQL)
+    FULL_TEXT, // слова и их начала, tsvector и GIN-индекс (PostgreSQL)
+    EMBEDDED   // подстрока и опечатки без индекса, функция WORD_SIMILARITY из TrigramSimilarity (H2)
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+/*
+    Поиск доступных вещей по названию и описанию. В PostgreSQL используется полнотекстовый
+    индекс и результаты упорядочены по релевантности (совпадения в названии выше),
+    в остальных базах - поиск подстроки без индекса.
+ */
+public interface ItemSearchRepository {
+
+    Slice<ItemDto> searchAvailable(String text, Pageable pageable);
+}
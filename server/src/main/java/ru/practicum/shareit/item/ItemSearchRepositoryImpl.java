@@ -0,0 +1,139 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+
+    // порог pg_trgm.word_similarity_threshold по умолчанию, им же пользуется оператор <%
+    static final double WORD_SIMILARITY_THRESHOLD = 0.6;
+
+    // выражение совпадает с выражением GIN-индекса items_available_trgm_idx (schema-postgresql-TRIGRAM.sql)
+    private static final String SEARCH_TEXT = "lower(i.name || ' ' || coalesce(i.description, ''))";
+
+    // прежний поиск подстроки без учета регистра; работает в любой базе, индексы pg_trgm не нужны
+    static final String LIKE_QUERY =
+            "select i.id, i.name, i.description, i.is_available, i.request_id " +
+            "from items i " +
+            "where i.is_available = true and (lower(i.name) like ?1 or lower(i.description) like ?1) " +
+            "order by i.id";
+
+    /*
+        Вещи, содержащие запрос подстрокой, идут первыми, затем найденные с опечатками.
+        LIMIT у страницы позволяет базе держать при сортировке только лучшие строки, а не сортировать
+        все совпадения целиком (top-N heapsort в PostgreSQL).
+     */
+    static final String TRIGRAM_QUERY = trigramQuery("?1 <% " + SEARCH_TEXT);
+    private static final String EMBEDDED_QUERY = trigramQuery(
+            "word_similarity(?1, " + SEARCH_TEXT + ") >= " + WORD_SIMILARITY_THRESHOLD
+    );
+
+    /*
+        search_vector - генерируемый столбец с GIN-индексом (schema-postgresql-FULL_TEXT.sql).
+        Каждое слово запроса ищется как префикс слова в тексте: "дрел" найдет "дрель".
+     */
+    static final String FULL_TEXT_QUERY =
+            "select i.id, i.name, i.description, i.is_available, i.request_id " +
+            "from items i, to_tsquery('simple', ?1) search_query " +
+            "where i.is_available = true and i.search_vector @@ search_query " +
+            "order by ts_rank(i.search_vector, search_query) desc, i.id";
+
+    private final EntityManager entityManager;
+    private final ItemSearchMode mode;
+
+    public ItemSearchRepositoryImpl(EntityManager entityManager,
+                                    @Value("${shareit.items.search.mode:LIKE}") ItemSearchMode mode) {
+        this.entityManager = entityManager;
+        this.mode = mode;
+    }
+
+    // на страницу запрашивается одна лишняя строка, чтобы узнать о следующей без подсчета всех совпадений
+    @Override
+    public Slice<ItemDto> searchAvailable(String text, Pageable pageable) {
+        List<ItemDto> items;
+        switch (mode) {
+            case TRIGRAM:
+                items = searchTrigram(TRIGRAM_QUERY, text, pageable);
+                break;
+            case FULL_TEXT:
+                items = searchFullText(text, pageable);
+                break;
+            case EMBEDDED:
+                items = searchTrigram(EMBEDDED_QUERY, text, pageable);
+                break;
+            default:
+                items = searchLike(text, pageable);
+        }
+        boolean hasNext = items.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? items.subList(0, pageable.getPageSize()) : items, pageable, hasNext);
+    }
+
+    // слова из букв и цифр; знаки препинания и операторы tsquery в запрос не попадают
+    static String toPrefixQuery(String text) {
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    // шаблон LIKE для подстроки; \ - экранирующий символ по умолчанию в PostgreSQL и H2
+    static String toContainsPattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private static String trigramQuery(String similar) {
+        return "select i.id, i.name, i.description, i.is_available, i.request_id " +
+               "from items i " +
+               "where i.is_available = true and (" + SEARCH_TEXT + " like ?2 or " + similar + ") " +
+               "order by (" + SEARCH_TEXT + " like ?2) desc, word_similarity(?1, " + SEARCH_TEXT + ") desc, i.id";
+    }
+
+    private List<ItemDto> searchLike(String text, Pageable pageable) {
+        return toItemDtos(entityManager.createNativeQuery(LIKE_QUERY)
+                .setParameter(1, toContainsPattern(text)), pageable);
+    }
+
+    private List<ItemDto> searchTrigram(String sql, String text, Pageable pageable) {
+        return toItemDtos(entityManager.createNativeQuery(sql)
+                .setParameter(1, text.toLowerCase(Locale.ROOT))
+                .setParameter(2, toContainsPattern(text)), pageable);
+    }
+
+    private List<ItemDto> searchFullText(String text, Pageable pageable) {
+        String query = toPrefixQuery(text);
+        if (query.isEmpty()) return Collections.emptyList();
+        return toItemDtos(entityManager.createNativeQuery(FULL_TEXT_QUERY).setParameter(1, query), pageable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ItemDto> toItemDtos(Query query, Pageable pageable) {
+        List<Object[]> rows = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new ItemDto(
+                        toLong(row[0]), (String) row[1], (String) row[2], (Boolean) row[3], toLong(row[4])
+                ))
+                .collect(Collectors.toList());
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
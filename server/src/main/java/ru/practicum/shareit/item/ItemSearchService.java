@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+    Необязательный индекс поиска вещей в памяти (shareit.items.search.index.enabled).
+    Индекс находит те же вещи, что и поиск в базе в режиме LIKE, и в других режимах выключен.
+    Пока индекс выключен или еще строится, а также для запросов короче трех символов
+    поиск возвращает пустой Optional, и вещи ищутся в базе.
+ */
+@Transactional(readOnly = true)
+public interface ItemSearchService {
+
+    Optional<List<ItemDto>> search(String text, int from, int size);
+
+    // изменения применяются к индексу после фиксации текущей транзакции
+    void itemSaved(ItemDto item);
+
+    void itemDeleted(Long itemId);
+
+    // полное перестроение по базе; возвращает число вещей в индексе
+    int rebuild();
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+    Индекс строится целиком при старте и затем раз в rebuild-delay: так подхватываются вещи,
+    измененные на других узлах или удаленные каскадно вместе с владельцем, и освобождается место
+    удаленных документов. Между перестроениями индекс меняется при создании, изменении и удалении
+    вещей. Изменения, пришедшие во время перестроения, повторяются на новом индексе перед заменой.
+ */
+@Slf4j
+@Service
+public class ItemSearchServiceImpl implements ItemSearchService {
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // под блокировкой записи
+    private InvertedItemIndex index;
+    private List<Consumer<InvertedItemIndex>> pending;
+
+    public ItemSearchServiceImpl(ItemRepository itemRepository,
+                                 @Value("${shareit.items.search.index.enabled:false}") boolean enabled,
+                                 @Value("${shareit.items.search.mode:LIKE}") ItemSearchMode mode) {
+        this.itemRepository = itemRepository;
+        // индекс ищет подстроку, как режим LIKE; в других режимах база находит больше, и индекс не используется
+        this.enabled = enabled && mode == ItemSearchMode.LIKE;
+        if (enabled && !this.enabled) {
+            log.warn("Индекс поиска вещей не используется в режиме поиска {}", mode);
+        }
+    }
+
+    @Override
+    public Optional<List<ItemDto>> search(String text, int from, int size) {
+        if (text.length() < InvertedItemIndex.MIN_QUERY_LENGTH) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            if (index == null) return Optional.empty();
+            // смещение страницы - как в PageRequest.of(from / size, size) при поиске в базе
+            return Optional.of(index.search(text, from / size * size, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void itemSaved(ItemDto item) {
+        afterCommit(searchIndex -> searchIndex.put(item));
+    }
+
+    @Override
+    public void itemDeleted(Long itemId) {
+        afterCommit(searchIndex -> searchIndex.remove(itemId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.items.search.index.rebuild-delay:600000}",
+            initialDelayString = "${shareit.items.search.index.rebuild-delay:600000}")
+    @Override
+    public int rebuild() {
+        if (!enabled) return 0;
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedItemIndex rebuilt = new InvertedItemIndex();
+        try {
+            long lastId = 0;
+            List<ItemDto> items;
+            do {
+                items = itemRepository.findAvailableAfter(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                items.forEach(rebuilt::put);
+                if (!items.isEmpty()) {
+                    lastId = items.get(items.size() - 1).getId();
+                }
+            } while (items.size() == REBUILD_PAGE_SIZE);
+            rebuilt.trim();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(rebuilt));
+            pending = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс поиска вещей перестроен за {} мс: {} вещей",
+                System.currentTimeMillis() - started, rebuilt.size());
+        return rebuilt.size();
+    }
+
+    private void afterCommit(Consumer<InvertedItemIndex> change) {
+        if (!enabled) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<InvertedItemIndex> change) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                change.accept(index);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentInDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -21,6 +22,9 @@ public interface ItemService {
 
     ItemDto getItemById(Long userId, Long itemId);
 
+    // cursor == null - первая страница, самые новые комментарии
+    List<CommentDto> getComments(Long itemId, CommentCursor cursor, Integer size);
+
     List<ItemDto> searchItemByName(Long userId, String namePart, Integer from, Integer size);
 
     @Transactional
@@ -7,8 +7,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSummaryService;
 import ru.practicum.shareit.booking.dto.BookingMapper;
-import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.error.EntryNotFoundException;
 import ru.practicum.shareit.error.InvalidRequestParamsException;
@@ -22,9 +22,11 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,11 +35,19 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
 
+    // в карточку вещи попадают только последние комментарии, остальные читаются через getComments
+    static final int EMBEDDED_COMMENTS = 10;
+
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final BookingSummaryService bookingSummaryService;
+    private final ItemAvailabilityService itemAvailabilityService;
+    private final ItemSearchService itemSearchService;
+    private final ItemSearchCacheService itemSearchCacheService;
+    private final ItemDetailsCacheService itemDetailsCacheService;
 
     @Transactional
     @Override
@@ -48,7 +58,11 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getRequestId() != null) {
             item.setRequest(getItemRequestOrThrow(itemDto.getRequestId()));
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        ItemDto saved = ItemMapper.toItemDto(itemRepository.save(item));
+        itemSearchService.itemSaved(saved);
+        // после индекса в памяти: иначе кэш может сохранить прочитанную из индекса старую выдачу
+        itemSearchCacheService.itemChanged(null, saved);
+        return saved;
     }
 
     @Transactional
@@ -69,7 +83,10 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(user);
         comment.setItem(item);
         comment.setCreated(LocalDateTime.now());
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto saved = CommentMapper.toCommentDto(commentRepository.save(comment));
+        itemRepository.incrementCommentCount(itemId);
+        itemDetailsCacheService.itemChanged(itemId);
+        return saved;
     }
 
     @Override
@@ -83,52 +100,95 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private List<ItemDto> makeItemDtosWithBookingsAndComments(List<Item> items) {
-        Map<Long, BookingShortDto> nextBookingsForItems =
-                bookingRepository.findNextBookingsFor(items, LocalDateTime.now()).stream()
-                        .collect(Collectors.toMap(
-                                booking -> booking.getItem().getId(),
-                                BookingMapper::toBookingShortDto,
-                                (existing, replacement) -> existing)
-                        );
-        Map<Long, BookingShortDto> lastBookingsForItems =
-                bookingRepository.findLastBookingsFor(items, LocalDateTime.now()).stream()
-                        .collect(Collectors.toMap(
-                                booking -> booking.getItem().getId(),
-                                BookingMapper::toBookingShortDto,
-                                (existing, replacement) -> existing)
-                        );
-        Map<Long, List<Comment>> commentsForItems = commentRepository.findCommentsFor(items).stream()
-                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
-        return ItemMapper.toItemDto(items).stream()
-                .peek(itemDto -> {
-                    itemDto.setLastBooking(lastBookingsForItems.get(itemDto.getId()));
-                    itemDto.setNextBooking(nextBookingsForItems.get(itemDto.getId()));
-                    itemDto.setComments(CommentMapper.toCommentDto(commentsForItems.get(itemDto.getId())));
-                })
+        if (items.isEmpty()) return Collections.emptyList();
+        LocalDateTime now = LocalDateTime.now();
+        /*
+            Ссылки на бронирования хранятся у вещи. Если следующее бронирование уже началось,
+            а плановый перенос ссылок еще не прошел, берем бронирования из таблицы.
+         */
+        List<Long> staleItemIds = items.stream()
+                .filter(item -> item.getNextBooking() != null && !item.getNextBooking().getStartDate().isAfter(now))
+                .map(Item::getId)
                 .collect(Collectors.toList());
+        Map<Long, Booking> nextBookingsForStaleItems = Collections.emptyMap();
+        Map<Long, Booking> lastBookingsForStaleItems = Collections.emptyMap();
+        if (!staleItemIds.isEmpty()) {
+            nextBookingsForStaleItems = bookingRepository.findNextBookingsFor(staleItemIds, now).stream()
+                    .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+            lastBookingsForStaleItems = bookingRepository.findLastBookingsFor(staleItemIds, now).stream()
+                    .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+        }
+        Map<Long, List<Comment>> commentsForItems = findLatestComments(items);
+
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (Item item : items) {
+            ItemDto itemDto = ItemMapper.toItemDto(item);
+            if (staleItemIds.contains(item.getId())) {
+                itemDto.setLastBooking(BookingMapper.toBookingShortDto(lastBookingsForStaleItems.get(item.getId())));
+                itemDto.setNextBooking(BookingMapper.toBookingShortDto(nextBookingsForStaleItems.get(item.getId())));
+            } else {
+                itemDto.setLastBooking(BookingMapper.toBookingShortDto(item.getLastBooking()));
+                itemDto.setNextBooking(BookingMapper.toBookingShortDto(item.getNextBooking()));
+            }
+            itemDto.setComments(CommentMapper.toCommentDto(commentsForItems.get(item.getId())));
+            itemDto.setCommentCount(item.getCommentCount());
+            itemDtos.add(itemDto);
+        }
+        return itemDtos;
     }
 
     @Override
     public ItemDto getItemById(Long userId, Long itemId) {
+        ItemSnapshot snapshot = itemDetailsCacheService.getItem(itemId, () -> ItemSnapshot.of(
+                getItemOrThrow(itemId), commentRepository.findLatestFor(itemId, PageRequest.of(0, EMBEDDED_COMMENTS))
+        ));
+        ItemDto itemDto = snapshot.toItemDto();
+        if (snapshot.getOwnerId().equals(userId)) {
+            ItemBookingsSnapshot bookings = itemDetailsCacheService.getBookings(itemId, () -> loadBookings(itemId));
+            itemDto.setLastBooking(bookings.getLastBooking());
+            itemDto.setNextBooking(bookings.getNextBooking());
+        }
+        return itemDto;
+    }
+
+    @Override
+    public List<CommentDto> getComments(Long itemId, CommentCursor cursor, Integer size) {
+        PageRequest limit = PageRequest.of(0, size);
+        List<Comment> comments = cursor == null
+                ? commentRepository.findLatestFor(itemId, limit)
+                : commentRepository.findForItemBefore(itemId, cursor.getCreated(), cursor.getId(), limit);
+        if (comments.isEmpty() && !itemRepository.existsById(itemId)) {
+            throw new EntryNotFoundException(String.format("вещь с id = %d не найдена", itemId));
+        }
+        return CommentMapper.toCommentDto(comments);
+    }
+
+    private Map<Long, List<Comment>> findLatestComments(List<Item> items) {
+        List<Long> ids = commentRepository.findLatestIdsFor(
+                items.stream().map(Item::getId).collect(Collectors.toList()), EMBEDDED_COMMENTS
+        );
+        if (ids.isEmpty()) return Collections.emptyMap();
+        return commentRepository.findAllWithAuthorById(ids).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+    }
+
+    private ItemBookingsSnapshot loadBookings(Long itemId) {
         Item item = getItemOrThrow(itemId);
-        if (item.getOwner().getId().equals(userId)) {
-            return makeItemDtosWithBookingsAndComments(List.of(item)).get(0);
-        } else {
-            List<Comment> commentsForItem = commentRepository.findByItem_Id(itemId);
-            ItemDto itemDto = ItemMapper.toItemDto(item);
-            itemDto.setComments(CommentMapper.toCommentDto(commentsForItem));
-            return itemDto;
+        LocalDateTime now = LocalDateTime.now();
+        if (item.getNextBooking() == null || item.getNextBooking().getStartDate().isAfter(now)) {
+            return new ItemBookingsSnapshot(item.getLastBooking(), item.getNextBooking());
         }
+        // следующее бронирование уже началось, а ссылки вещи еще не перенесены
+        List<Booking> last = bookingRepository.findLastBookingsFor(List.of(itemId), now);
+        List<Booking> next = bookingRepository.findNextBookingsFor(List.of(itemId), now);
+        return new ItemBookingsSnapshot(last.isEmpty() ? null : last.get(0), next.isEmpty() ? null : next.get(0));
     }
 
     @Override
     public List<ItemDto> searchItemByName(Long userId, String text, Integer from, Integer size) {
         if (text.isBlank()) return Collections.emptyList();
-        return ItemMapper.toItemDto(
-                itemRepository.searchAvailable(
-                        text, PageRequest.of(from / size, size)
-                ).toList()
-        );
+        return itemSearchCacheService.search(text, from, size, () -> itemSearchService.search(text, from, size)
+                .orElseGet(() -> itemRepository.searchAvailable(text, PageRequest.of(from / size, size)).toList()));
     }
 
     @Transactional
@@ -136,6 +196,7 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto updateItem(Long userId, Long itemId, ItemInDto itemDto) {
         Item item = getItemOrThrow(itemId);
         throwIfUserCantEditItem(userId, item);
+        ItemDto before = ItemMapper.toItemDto(item);
 
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
@@ -147,7 +208,11 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
 
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        ItemDto saved = ItemMapper.toItemDto(itemRepository.save(item));
+        itemSearchService.itemSaved(saved);
+        itemSearchCacheService.itemChanged(before, saved);
+        itemDetailsCacheService.itemChanged(itemId);
+        return saved;
     }
 
     @Transactional
@@ -155,7 +220,12 @@ public class ItemServiceImpl implements ItemService {
     public void deleteItem(Long userId, Long itemId) {
         Item item = getItemOrThrow(itemId);
         throwIfUserCantEditItem(userId, item);
+        bookingSummaryService.itemDeleted(itemId, userId);
         itemRepository.delete(item);
+        itemAvailabilityService.invalidate(itemId);
+        itemSearchService.itemDeleted(itemId);
+        itemSearchCacheService.itemChanged(ItemMapper.toItemDto(item), null);
+        itemDetailsCacheService.itemChanged(itemId);
     }
 
     private Item getItemOrThrow(Long itemId) {
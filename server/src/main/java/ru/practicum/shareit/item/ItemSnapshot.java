@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+    Неизменяемый снимок вещи с последними комментариями для кэша карточек. Ответ каждый раз собирается
+    заново, поэтому изменение выданного ItemDto не затрагивает кэш.
+ */
+final class ItemSnapshot {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final boolean available;
+    private final Long requestId;
+    private final Long ownerId;
+    private final List<CommentDto> comments;
+    private final long commentCount;
+
+    private ItemSnapshot(Item item, List<CommentDto> comments) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.description = item.getDescription();
+        this.available = item.isAvailable();
+        this.requestId = item.getRequest() != null ? item.getRequest().getId() : null;
+        this.ownerId = item.getOwner().getId();
+        this.comments = comments;
+        this.commentCount = item.getCommentCount();
+    }
+
+    static ItemSnapshot of(Item item, List<Comment> comments) {
+        return new ItemSnapshot(item, List.copyOf(CommentMapper.toCommentDto(comments)));
+    }
+
+    Long getOwnerId() {
+        return ownerId;
+    }
+
+    ItemDto toItemDto() {
+        return ItemDto.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .requestId(requestId)
+                .comments(comments.stream()
+                        .map(comment -> new CommentDto(
+                                comment.getId(), comment.getText(), comment.getAuthorName(), comment.getCreated()
+                        ))
+                        .collect(Collectors.toList()))
+                .commentCount(commentCount)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+
+/*
+    Возрастающий список номеров документов, сжатый разностями в varint: для частых триграмм
+    соседние номера близки и занимают по одному байту. Номера добавляются только в конец.
+ */
+final class PostingList {
+    static final int END = Integer.MAX_VALUE;
+
+    private byte[] bytes = new byte[4];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    void add(int doc) {
+        if (doc <= last) {
+            throw new IllegalArgumentException("номера документов должны возрастать");
+        }
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        int delta = doc - last;
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = doc;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // после построения индекса запас под будущие добавления не нужен
+    void trim() {
+        bytes = Arrays.copyOf(bytes, length);
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    final class Cursor {
+        private int position;
+        private int doc = -1;
+
+        // следующий номер или END
+        int next() {
+            if (position >= length) {
+                doc = END;
+                return doc;
+            }
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            return doc;
+        }
+
+        // первый номер, не меньший target, или END
+        int advanceTo(int target) {
+            while (doc < target) {
+                next();
+            }
+            return doc;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+    Сходство строк по триграммам, как word_similarity из расширения pg_trgm: слова (буквы и цифры)
+    приводятся к нижнему регистру и дополняются двумя пробелами в начале и одним в конце.
+    Результат - наибольший коэффициент Жаккара между триграммами запроса и непрерывным отрезком
+    триграмм текста. В H2 функция регистрируется как WORD_SIMILARITY (schema-h2.sql).
+ */
+public final class TrigramSimilarity {
+
+    private TrigramSimilarity() {
+    }
+
+    public static double wordSimilarity(String query, String text) {
+        if (query == null || text == null) return 0;
+        Set<String> queryTrigrams = new HashSet<>(trigrams(query));
+        if (queryTrigrams.isEmpty()) return 0;
+        List<String> textTrigrams = trigrams(text);
+
+        // отрезок выгодно начинать и заканчивать триграммой запроса
+        double best = 0;
+        for (int start = 0; start < textTrigrams.size(); start++) {
+            if (!queryTrigrams.contains(textTrigrams.get(start))) continue;
+            Set<String> extent = new HashSet<>();
+            int common = 0;
+            for (int end = start; end < textTrigrams.size(); end++) {
+                String trigram = textTrigrams.get(end);
+                boolean inQuery = queryTrigrams.contains(trigram);
+                if (extent.add(trigram) && inQuery) {
+                    common++;
+                }
+                if (inQuery) {
+                    best = Math.max(best, (double) common / (queryTrigrams.size() + extent.size() - common));
+                }
+            }
+        }
+        return best;
+    }
+
+    // триграммы слов по порядку, с повторами
+    static List<String> trigrams(String text) {
+        List<String> result = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+}
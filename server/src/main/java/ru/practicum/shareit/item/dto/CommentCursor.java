@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.error.InvalidRequestParamsException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+    Позиция в списке комментариев вещи, отсортированном по (created, id) по убыванию.
+    Клиенту передается в виде непрозрачной строки.
+ */
+@Data
+@AllArgsConstructor
+public class CommentCursor {
+    private static final String SEPARATOR = "_";
+
+    private LocalDateTime created;
+    private Long id;
+
+    public static CommentCursor after(CommentDto comment) {
+        return new CommentCursor(comment.getCreated(), comment.getId());
+    }
+
+    public static CommentCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new CommentCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidRequestParamsException(String.format("Некорректный курсор: %s", token));
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((created + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+    Свободные и занятые подтвержденными бронированиями периоды вещи внутри [from, to).
+    Занятость считается по целым часам: час занят, если с ним пересекается хотя бы одно бронирование.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeRangeDto> free;
+    private List<TimeRangeDto> busy;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
 
+import java.util.Collections;
 import java.util.List;
 
 @Data
@@ -17,6 +18,11 @@ public class ItemDto {
     private Boolean available;
     private BookingShortDto lastBooking;
     private BookingShortDto nextBooking;
-    private List<CommentDto> comments;
+    private List<CommentDto> comments; // последние комментарии, остальные - GET /items/{itemId}/comments
+    private Long commentCount;
     private Long requestId;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Long requestId) {
+        this(id, name, description, available, null, null, Collections.emptyList(), null, requestId);
+    }
 }
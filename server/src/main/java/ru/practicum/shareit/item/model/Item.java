@@ -1,7 +1,10 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -32,4 +35,22 @@ public class Item {
     private ItemRequest request; /* если вещь была создана по запросу другого пользователя, то в этом
                                     поле будет храниться ссылка на соответствующий запрос
                                   */
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    private Booking lastBooking; // последнее начавшееся подтвержденное бронирование;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    private Booking nextBooking; // ближайшее будущее подтвержденное бронирование;
+
+    @Column(name = "comment_count", updatable = false)
+    private long commentCount; // число комментариев, у новой вещи 0, дальше меняется только запросами ItemRepository;
+
+    @Version
+    private Long version; // версия строки, по ней обнаруживаются параллельные изменения вещи.
 }
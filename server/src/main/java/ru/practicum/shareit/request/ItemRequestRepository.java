@@ -1,15 +1,19 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+    @Query("select request " +
+           "from ItemRequest request " +
+           "where request.requester.id = ?1")
     List<ItemRequest> findAllByRequester_Id(Long userId, Sort sort);
 
-    Page<ItemRequest> findAllByRequester_IdNot(Long userId, PageRequest pageRequest);
+    Slice<ItemRequest> findAllByRequester_IdNot(Long userId, PageRequest pageRequest);
 }
@@ -7,8 +7,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.error.EntryNotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.item.dto.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestInDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
@@ -17,6 +16,7 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -63,11 +63,11 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     private List<ItemRequestDto> makeItemRequestDtosWithItems(List<ItemRequest> requests) {
-        Map<Long, List<Item>> itemsForRequests = itemRepository.findItemsFor(requests).stream()
-                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        Map<Long, List<ItemDto>> itemsForRequests = itemRepository.findItemsFor(requests).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
         return ItemRequestMapper.toItemRequestDto(requests).stream()
                 .peek(itemRequestDto -> itemRequestDto.setItems(
-                        ItemMapper.toItemDto(itemsForRequests.get(itemRequestDto.getId())))
+                        itemsForRequests.getOrDefault(itemRequestDto.getId(), Collections.emptyList()))
                 )
                 .collect(Collectors.toList());
     }
@@ -80,9 +80,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                                 String.format("запрос с указанным id (%d) не существует", requestId)
                         )
                 );
-        List<Item> items = itemRepository.findAllByRequest_Id(requestId);
         ItemRequestDto dto = ItemRequestMapper.toItemRequestDto(itemRequest);
-        dto.setItems(ItemMapper.toItemDto(items));
+        dto.setItems(itemRepository.findAllByRequest_Id(requestId));
         return dto;
     }
 
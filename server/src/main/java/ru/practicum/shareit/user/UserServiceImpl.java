@@ -3,7 +3,13 @@ package ru.practicum.shareit.user;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSummaryService;
 import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.item.ItemBookingPointerService;
+import ru.practicum.shareit.item.ItemDetailsCacheService;
+import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -16,6 +22,11 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final BookingSummaryService bookingSummaryService;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemBookingPointerService itemBookingPointerService;
+    private final ItemDetailsCacheService itemDetailsCacheService;
 
     @Override
     public UserDto createUser(UserDto user) {
@@ -51,8 +62,20 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDto(userRepository.save(userToUpdate));
     }
 
+    /*
+        Бронирования пользователя удаляются каскадно, а ссылки вещей на них обнуляются базой.
+        Поэтому вещи других владельцев, которые он бронировал, после удаления получают ссылки
+        на оставшиеся бронирования заново.
+     */
     @Override
+    @Transactional
     public void deleteUser(Long id) {
+        List<Long> bookedItemIds = bookingRepository.findApprovedItemIdsForBooker(id);
+        bookingSummaryService.userDeleted(id);
+        itemRepository.decrementCommentCountsForAuthor(id);
         userRepository.deleteById(id);
+        userRepository.flush();
+        itemBookingPointerService.bookingsChanged(bookedItemIds);
+        bookedItemIds.forEach(itemDetailsCacheService::bookingsChanged);
     }
 }
@@ -0,0 +1 @@
+CREATE ALIAS IF NOT EXISTS WORD_SIMILARITY FOR 'ru.practicum.shareit.item.TrigramSimilarity.wordSimilarity';
@@ -0,0 +1,6 @@
+-- только для shareit.items.search.mode=FULL_TEXT: столбец пересчитывается при каждой записи вещи
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple'::regconfig, coalesce(name, '')), 'A') ||
+                         setweight(to_tsvector('simple'::regconfig, coalesce(description, '')), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS items_available_search_idx ON items USING GIN (search_vector)
+    WHERE is_available = true;
@@ -0,0 +1,5 @@
+-- только для shareit.items.search.mode=TRIGRAM: индекс обновляется при каждой записи вещи
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS items_available_trgm_idx
+    ON items USING GIN (lower(name || ' ' || coalesce(description, '')) gin_trgm_ops)
+    WHERE is_available = true;
@@ -12,6 +12,8 @@ CREATE TABLE IF NOT EXISTS requests (
     create_date TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW()
 );
 
+CREATE INDEX IF NOT EXISTS requests_requester_created_idx ON requests (requester_id, create_date);
+
 CREATE TABLE IF NOT EXISTS items (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
@@ -21,6 +23,9 @@ CREATE TABLE IF NOT EXISTS items (
     request_id BIGINT REFERENCES requests(id) ON DELETE SET NULL
 );
 
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE,
@@ -30,6 +35,16 @@ CREATE TABLE IF NOT EXISTS bookings (
     status VARCHAR(20)
 );
 
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS bookings_item_end_idx ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_end_idx ON bookings (booker_id, end_date);
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     text VARCHAR(1000) NOT NULL,
@@ -37,3 +52,30 @@ CREATE TABLE IF NOT EXISTS comments (
     author_id BIGINT REFERENCES users(id) ON DELETE CASCADE,
     create_date TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW()
 );
+
+-- комментарии вещи читаются страницами от новых к старым по (create_date, id)
+CREATE INDEX IF NOT EXISTS comments_item_created_id_idx ON comments (item_id, create_date, id);
+DROP INDEX IF EXISTS comments_item_created_idx;
+
+-- число комментариев вещи; столбец добавляется пустым и заполняется только там, где еще пуст,
+-- поэтому при повторных запусках скрипта счетчики не пересчитываются
+ALTER TABLE items ADD COLUMN IF NOT EXISTS comment_count BIGINT;
+UPDATE items SET comment_count = (SELECT COUNT(*) FROM comments WHERE comments.item_id = items.id)
+WHERE comment_count IS NULL;
+ALTER TABLE items ALTER COLUMN comment_count SET DEFAULT 0;
+ALTER TABLE items ALTER COLUMN comment_count SET NOT NULL;
+
+-- строка без counted_at - счетчики не подсчитаны и будут пересчитаны при чтении
+CREATE TABLE IF NOT EXISTS booking_counters (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    role VARCHAR(10) NOT NULL,
+    counted_at TIMESTAMP WITHOUT TIME ZONE,
+    total BIGINT NOT NULL,
+    waiting BIGINT NOT NULL,
+    rejected BIGINT NOT NULL,
+    started BIGINT NOT NULL,
+    ended BIGINT NOT NULL,
+    CONSTRAINT uniq_user_role UNIQUE (user_id, role)
+);
+ALTER TABLE booking_counters ALTER COLUMN counted_at DROP NOT NULL;
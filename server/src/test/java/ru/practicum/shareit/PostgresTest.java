@@ -0,0 +1,52 @@
+package ru.practicum.shareit;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+    Основа тестов, которым нужен настоящий PostgreSQL: запросы с его расширениями и планы по его индексам.
+    Сервер той же версии, что и в docker-compose.yml, запускается один раз на все тесты и останавливается
+    вместе с JVM. Схема создается теми же скриптами, что и в работе; тесты делят одну базу,
+    поэтому откатывают или удаляют свои данные, как и тесты на H2.
+    Остальные настройки - из профиля test, кроме тех, что там заданы только из-за H2.
+ */
+public abstract class PostgresTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.url",
+                () -> POSTGRES.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.sql.init.schema-locations", () -> "classpath:schema.sql,classpath:schema-postgresql.sql," +
+                "optional:classpath:schema-postgresql-${shareit.items.search.mode}.sql");
+        registry.add("shareit.bookings.expiry.cluster-lock", () -> "true");
+        registry.add("shareit.items.search.mode", () -> "LIKE");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            // классы символов из UTF-8, как в образе postgres: в локали C pg_trgm не видит букв кириллицы
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                    .setLocaleConfig("locale", "C.UTF-8")
+                    .start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*
+    Проверяет по EXPLAIN в PostgreSQL, что у каждого запроса репозиториев есть план без чтения таблиц
+    целиком. Последовательное чтение запрещено (enable_seqscan = off), поэтому Seq Scan в плане
+    означает, что подходящего индекса нет. План строится общий, без значений параметров,
+    как для подготовленного запроса: PREPARE и EXPLAIN EXECUTE с NULL вместо каждого параметра.
+    Поиск по подстроке (like '%text%') и выборка чужих запросов (requester_id <> ?) индексом
+    не обслуживаются и здесь не проверяются.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.QueryPlanTest$SqlRecorder")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest extends PostgresTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "startDate", "id"));
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    private Long userId;
+    private Item item;
+    private ItemRequest request;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        execute("INSERT INTO users (name, email) " +
+                "SELECT 'user' || x, 'user' || x || '@mail.ru' FROM generate_series(1, 100) x");
+        userId = firstId("users");
+
+        execute("INSERT INTO requests (description, requester_id, create_date) " +
+                "SELECT 'request' || x, " + userId + " + x % 100, now() + x * interval '1 hour' " +
+                "FROM generate_series(1, 500) x");
+        Long requestId = firstId("requests");
+
+        execute("INSERT INTO items (name, description, is_available, owner_id, request_id) " +
+                "SELECT 'item' || x, 'description' || x, TRUE, " + userId + " + x % 100, " +
+                "CASE WHEN x % 5 = 0 THEN " + requestId + " + x % 500 END " +
+                "FROM generate_series(1, 1000) x");
+        Long itemId = firstId("items");
+
+        execute("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "SELECT now() + (x - 10000) * interval '1 hour', now() + (x - 9990) * interval '1 hour', " +
+                itemId + " + x % 1000, " + userId + " + x * 7 % 100, " +
+                "CASE WHEN x % 3 = 0 THEN 'WAITING' ELSE 'APPROVED' END " +
+                "FROM generate_series(1, 20000) x");
+
+        execute("INSERT INTO comments (text, item_id, author_id, create_date) " +
+                "SELECT 'comment' || x, " + itemId + " + x % 1000, " + userId + " + x % 100, " +
+                "now() + x * interval '1 hour' FROM generate_series(1, 5000) x");
+
+        execute("SET LOCAL enable_seqscan = off");
+        execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        item = em.find(Item.class, itemId);
+        request = em.find(ItemRequest.class, requestId);
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void shouldUseIndexesForBookerBookings() {
+        checkPlans(() -> bookingRepository.findAllForBooker(userId, PAGE));
+        checkPlans(() -> bookingRepository.findPastForBooker(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findCurrentForBooker(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findFutureForBooker(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findByStatusForBooker(userId, BookingStatus.WAITING, PAGE));
+        checkPlans(() -> bookingRepository.findAllForBookerBefore(userId, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findPastForBookerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findCurrentForBookerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findFutureForBookerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findByStatusForBookerBefore(userId, BookingStatus.WAITING, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findByBooker_IdAndItem_Id(
+                userId, item.getId(), Sort.by(Sort.Direction.ASC, "startDate")
+        ));
+        checkPlans(() -> bookingRepository.findApprovedItemIdsForBooker(userId));
+        checkPlans(() -> bookingRepository.findOwnerIdsForBooker(userId));
+        checkPlans(() -> bookingRepository.findBookerIdsForOwner(userId));
+        checkPlans(() -> bookingRepository.findBookerIdsForItem(item.getId()));
+    }
+
+    @Test
+    void shouldUseIndexesForOwnerBookings() {
+        checkPlans(() -> bookingRepository.findAllForOwner(userId, PAGE));
+        checkPlans(() -> bookingRepository.findPastForOwner(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findCurrentForOwner(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findFutureForOwner(userId, now, PAGE));
+        checkPlans(() -> bookingRepository.findByStatusForOwner(userId, BookingStatus.WAITING, PAGE));
+        checkPlans(() -> bookingRepository.findAllForOwnerBefore(userId, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findPastForOwnerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findCurrentForOwnerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findFutureForOwnerBefore(userId, now, now, 1L, PAGE));
+        checkPlans(() -> bookingRepository.findByStatusForOwnerBefore(userId, BookingStatus.WAITING, now, 1L, PAGE));
+    }
+
+    @Test
+    void shouldUseIndexesForItemBookings() {
+        checkPlans(() -> bookingRepository.findNextBookingsFor(List.of(item.getId()), now));
+        checkPlans(() -> bookingRepository.findLastBookingsFor(List.of(item.getId()), now));
+        checkPlans(() -> bookingRepository.existsOverlapping(
+                item.getId(), now, now.plusDays(1), EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED)
+        ));
+        checkPlans(() -> bookingRepository.findAllForOwnerByIds(userId, List.of(1L, 2L)));
+        checkPlans(() -> bookingRepository.findForItemsBetween(
+                List.of(item.getId()), now, now.plusDays(1), EnumSet.of(BookingStatus.APPROVED)
+        ));
+    }
+
+    @Test
+    void shouldUseIndexesForItemsCommentsAndRequests() {
+        checkPlans(() -> itemRepository.findAllByOwner_Id(
+                userId, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"))
+        ));
+        checkPlans(() -> itemRepository.findItemsFor(List.of(request)));
+        checkPlans(() -> itemRepository.findAllByRequest_Id(request.getId()));
+        checkPlans(() -> commentRepository.findLatestFor(item.getId(), PageRequest.of(0, 10)));
+        checkPlans(() -> commentRepository.findForItemBefore(item.getId(), now, 1L, PageRequest.of(0, 10)));
+        checkPlans(() -> commentRepository.findLatestIdsFor(List.of(item.getId()), 10));
+        checkPlans(() -> commentRepository.findAllWithAuthorById(List.of(1L, 2L)));
+        checkPlans(() -> itemRequestRepository.findAllByRequester_Id(userId, Sort.by("created").descending()));
+    }
+
+    private void checkPlans(Runnable query) {
+        SqlRecorder.STATEMENTS.clear();
+        query.run();
+        assertThat(SqlRecorder.STATEMENTS.isEmpty(), is(false));
+
+        for (String sql : SqlRecorder.STATEMENTS) {
+            String plan = explain(sql);
+            assertThat(plan, plan, not(containsString("Seq Scan")));
+        }
+    }
+
+    private String explain(String sql) {
+        String[] parts = (sql + " ").split("\\?");
+        StringBuilder numbered = new StringBuilder(parts[0]);
+        StringJoiner nulls = new StringJoiner(", ", "(", ")");
+        for (int i = 1; i < parts.length; i++) {
+            numbered.append('$').append(i).append(parts[i]);
+            nulls.add("NULL");
+        }
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PREPARE checked_query AS " + numbered);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery(
+                        "EXPLAIN EXECUTE checked_query" + (parts.length > 1 ? nulls : ""))) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                } finally {
+                    statement.execute("DEALLOCATE checked_query");
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        em.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+
+    private Long firstId(String table) {
+        return ((Number) em.getEntityManager()
+                .createNativeQuery("SELECT MIN(id) FROM " + table)
+                .getSingleResult()).longValue();
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import ru.practicum.shareit.PostgresTest;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingInDto;
+import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.ConcurrentUpdateException;
+import ru.practicum.shareit.error.ItemNotAvailableException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+
+/*
+    Блокировки проверяются на PostgreSQL: в H2 взаимные блокировки не обнаруживаются, а ждут тайм-аута.
+    Данные сохраняются в отдельных транзакциях, чтобы их видели параллельные потоки,
+    и удаляются после каждого теста вместе с пользователями.
+ */
+@Slf4j
+@SpringBootTest
+class BookingApprovalConcurrencyTest extends PostgresTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingCountersRepository bookingCountersRepository;
+    @Autowired
+    private UserRepository userRepository;
+    private User owner;
+    private User booker;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        owner = makeUser("The Owner");
+        booker = makeUser("John Doe");
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    // подтверждение блокирует строку вещи, но не меняет ее версию: правка вещи владельцем не получает конфликта
+    @Test
+    void shouldKeepItemVersionWhenBookingApproved() {
+        Item item = makeItem();
+        Booking booking = makeBooking(item, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        Long version = itemRepository.findById(item.getId()).orElseThrow().getVersion();
+
+        bookingService.setBookingApproveStatus(owner.getId(), booking.getId(), true);
+
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getVersion(), equalTo(version));
+    }
+
+    @Test
+    void shouldApproveSameBookingOnlyOnce() throws Exception {
+        Booking booking = makeBooking(makeItem(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        List<Callable<Object>> approvals = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            approvals.add(() -> bookingService.setBookingApproveStatus(owner.getId(), booking.getId(), true));
+        }
+
+        List<Throwable> failures = runConcurrently(approvals);
+
+        assertThat(failures.size(), equalTo(THREADS - 1));
+        assertThat(failures, everyItem(anyOf(
+                instanceOf(ConcurrencyFailureException.class),
+                instanceOf(ItemNotAvailableException.class)
+        )));
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.APPROVED));
+    }
+
+    @Test
+    void shouldCreateOnlyOneOfOverlappingBookings() throws Exception {
+        Item item = makeItem();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Object>> creations = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LocalDateTime shiftedStart = start.plusMinutes(i);
+            creations.add(() -> bookingService.createBooking(
+                    booker.getId(), new BookingInDto(item.getId(), shiftedStart, shiftedStart.plusDays(1))
+            ));
+        }
+
+        List<Throwable> failures = runConcurrently(creations);
+
+        assertThat(failures.size(), equalTo(THREADS - 1));
+        assertThat(failures, everyItem(anyOf(
+                instanceOf(ConcurrencyFailureException.class),
+                instanceOf(ItemNotAvailableException.class)
+        )));
+        assertThat(bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .count(), equalTo(1L));
+    }
+
+    // бронирования вперемешку с первыми чтениями сводки: пересчет не теряет незафиксированные бронирования
+    @Test
+    void shouldCreateAllOfConcurrentBookingsForDisjointPeriods() throws Exception {
+        Item item = makeItem();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LocalDateTime dayStart = start.plusDays(i);
+            tasks.add(() -> bookingService.createBooking(
+                    booker.getId(), new BookingInDto(item.getId(), dayStart, dayStart.plusHours(12))
+            ));
+            tasks.add(() -> bookingService.getUserBookingSummary(booker.getId()));
+            tasks.add(() -> bookingService.getOwnerBookingSummary(owner.getId()));
+        }
+
+        List<Throwable> failures = runConcurrently(tasks);
+
+        assertThat(failures, empty());
+        assertThat(bookingRepository.findAll().stream()
+                .filter(booking -> booking.getItem().getId().equals(item.getId()))
+                .count(), equalTo((long) THREADS));
+        assertThat(bookingService.getUserBookingSummary(booker.getId()).get(BookingStateFilter.WAITING),
+                equalTo((long) THREADS));
+        assertThat(bookingService.getOwnerBookingSummary(owner.getId()).get(BookingStateFilter.ALL),
+                equalTo((long) THREADS));
+    }
+
+    @Test
+    void shouldStoreCountersOnceForConcurrentFirstReads() throws Exception {
+        Item item = makeItem();
+        makeBooking(item, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        List<Callable<Object>> reads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            reads.add(() -> bookingService.getOwnerBookingSummary(owner.getId()));
+        }
+
+        List<Throwable> failures = runConcurrently(reads);
+
+        assertThat(failures, empty());
+        assertThat(bookingCountersRepository.findByUserIdAndRole(owner.getId(), BookingRole.OWNER)
+                .orElseThrow().getTotal(), equalTo(1L));
+    }
+
+    // одиночные и пакетные подтверждения пересекающихся бронирований одних и тех же вещей
+    @Test
+    void shouldNotApproveOverlappingBookingsUnderContention() throws Exception {
+        int itemCount = 20;
+        int bookingsPerItem = THREADS;
+        List<Item> items = new ArrayList<>();
+        List<Callable<Object>> approvals = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = makeItem();
+            items.add(item);
+            for (int j = 0; j < bookingsPerItem; j++) {
+                Booking booking = makeBooking(
+                        item, LocalDateTime.now().plusDays(1).plusHours(j), LocalDateTime.now().plusDays(2).plusHours(j)
+                );
+                approvals.add(j % 2 == 0
+                        ? () -> bookingService.setBookingApproveStatus(owner.getId(), booking.getId(), true)
+                        : () -> approveInBatch(booking.getId()));
+            }
+        }
+        Collections.shuffle(approvals);
+
+        long started = System.nanoTime();
+        List<Throwable> failures = runConcurrently(approvals);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Подтверждения под конкуренцией: {} запросов за {} с ({} в секунду), отказов {}",
+                approvals.size(), String.format("%.2f", seconds),
+                String.format("%.0f", approvals.size() / seconds), failures.size());
+
+        assertThat(failures, everyItem(anyOf(
+                instanceOf(ConcurrencyFailureException.class),
+                instanceOf(ConcurrentUpdateException.class),
+                instanceOf(ItemNotAvailableException.class)
+        )));
+        // ни одной взаимной блокировки или тайм-аута ожидания блокировки
+        assertThat(failures, everyItem(not(instanceOf(PessimisticLockingFailureException.class))));
+        Map<Long, Long> approvedByItem = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(), Collectors.counting()));
+        for (Item item : items) {
+            assertThat(approvedByItem.get(item.getId()), equalTo(1L));
+        }
+    }
+
+    // отказ в пакете возвращается в результате, а не исключением
+    private Object approveInBatch(Long bookingId) {
+        String error = bookingService.setBookingsApproveStatus(
+                owner.getId(), List.of(new BookingDecisionDto(bookingId, true))
+        ).get(0).getError();
+        if (error != null) {
+            throw new ItemNotAvailableException(error);
+        }
+        return null;
+    }
+
+    private List<Throwable> runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = tasks.stream()
+                .map(task -> executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }))
+                .collect(Collectors.toList());
+        start.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    private User makeUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@concurrency.test");
+        return userRepository.save(user);
+    }
+
+    private Item makeItem() {
+        Item item = new Item();
+        item.setName("thing");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return itemRepository.save(item);
+    }
+
+    private Booking makeBooking(Item item, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.WAITING);
+        return bookingRepository.save(booking);
+    }
+}
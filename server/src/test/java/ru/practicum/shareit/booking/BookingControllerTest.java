@@ -10,10 +10,18 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.error.EntryNotFoundException;
 import ru.practicum.shareit.error.ItemNotAvailableException;
@@ -24,7 +32,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
@@ -41,6 +51,10 @@ class BookingControllerTest {
 
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private BookingStreamService bookingStreamService;
+    @MockBean
+    private BookingExportService bookingExportService;
 
 
     private final List<ItemDto> itemDtoList = List.of(
@@ -52,6 +66,7 @@ class BookingControllerTest {
                     null,
                     new BookingShortDto(2L, 2L),
                     Collections.emptyList(),
+                    null,
                     null
             ),
             new ItemDto(
@@ -62,6 +77,7 @@ class BookingControllerTest {
                     null,
                     null,
                     Collections.emptyList(),
+                    null,
                     null
             )
     );
@@ -124,6 +140,31 @@ class BookingControllerTest {
         checkOneBooking(result, bookingDtoList.get(0));
     }
 
+    @Test
+    void shouldCreateBookings() throws Exception {
+        when(bookingService.createBookings(anyLong(), any()))
+                .thenReturn(List.of(bookingDtoList.get(1), bookingDtoList.get(2)));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 2L)
+                        .content(new ObjectMapper()
+                                .registerModule(new JavaTimeModule())
+                                .writeValueAsString(List.of(
+                                        new BookingInDto(1L, bookingDtoList.get(1).getStart(),
+                                                bookingDtoList.get(1).getEnd()),
+                                        new BookingInDto(2L, bookingDtoList.get(2).getStart(),
+                                                bookingDtoList.get(2).getEnd())
+                                )))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[1].id", is(3)));
+    }
+
     @Test
     void shouldGetErrorOnCreateBookingWhenNoItemAvailable() throws Exception {
         when(bookingService.createBooking(anyLong(), any()))
@@ -202,6 +243,49 @@ class BookingControllerTest {
         checkListOfBookings(result, List.of(bookingDtoList.get(1), bookingDtoList.get(2)));
     }
 
+    @Test
+    void shouldReturnNextCursorWhenPageIsFull() throws Exception {
+        when(bookingService.getUserBookings(anyLong(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(bookingDtoList.get(1), bookingDtoList.get(2)));
+
+        mockMvc.perform(get("/bookings?state=ALL&size=2")
+                        .header("X-Sharer-User-Id", 2L)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(
+                        BookingController.NEXT_CURSOR_HEADER,
+                        BookingCursor.after(bookingDtoList.get(2)).encode()
+                ));
+
+        mockMvc.perform(get("/bookings?state=ALL&size=3")
+                        .header("X-Sharer-User-Id", 2L)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldGetUserBookingsByCursor() throws Exception {
+        BookingCursor cursor = BookingCursor.after(bookingDtoList.get(0));
+        when(bookingService.getUserBookings(anyLong(), any(), eq(cursor), anyInt()))
+                .thenReturn(List.of(bookingDtoList.get(1), bookingDtoList.get(2)));
+
+        var result = mockMvc.perform(get("/bookings?state=ALL&cursor=" + cursor.encode())
+                        .header("X-Sharer-User-Id", 2L)
+                )
+                .andExpect(status().isOk());
+
+        checkListOfBookings(result, List.of(bookingDtoList.get(1), bookingDtoList.get(2)));
+    }
+
+    @Test
+    void shouldGetErrorIfWrongCursorWhenGetOwnerBookings() throws Exception {
+        mockMvc.perform(get("/bookings/owner?state=ALL&cursor=wrong")
+                        .header("X-Sharer-User-Id", 3L)
+                )
+                .andExpect(status().is(HttpStatus.BAD_REQUEST.value()));
+    }
+
     @Test
     void shouldGetErrorIfWrongStateWhenGetUserBookings() throws Exception {
         when(bookingService.getUserBookings(anyLong(), any(), anyInt(), anyInt()))
@@ -293,6 +377,79 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.error", is("Unknown state: WRONG_STATE")));
     }
 
+    @Test
+    void shouldSetBookingsApproveStatus() throws Exception {
+        when(bookingService.setBookingsApproveStatus(anyLong(), any()))
+                .thenReturn(List.of(
+                        BookingDecisionResultDto.applied(bookingDtoList.get(0)),
+                        BookingDecisionResultDto.failed(5L, "бронирование с указанным id (5) не существует")
+                ));
+
+        mockMvc.perform(patch("/bookings")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(new ObjectMapper().writeValueAsString(List.of(
+                                new BookingDecisionDto(1L, true),
+                                new BookingDecisionDto(5L, false)
+                        )))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].bookingId", is(1)))
+                .andExpect(jsonPath("$[0].booking.status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].bookingId", is(5)))
+                .andExpect(jsonPath("$[1].error", is("бронирование с указанным id (5) не существует")));
+        verify(bookingService).setBookingsApproveStatus(
+                3L, List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(5L, false))
+        );
+    }
+
+    @Test
+    void shouldGetOwnerBookingSummary() throws Exception {
+        Map<BookingStateFilter, Long> summary = new EnumMap<>(BookingStateFilter.class);
+        summary.put(BookingStateFilter.ALL, 3L);
+        summary.put(BookingStateFilter.WAITING, 1L);
+        when(bookingService.getOwnerBookingSummary(anyLong())).thenReturn(summary);
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 3L)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ALL", is(3)))
+                .andExpect(jsonPath("$.WAITING", is(1)));
+        verify(bookingService).getOwnerBookingSummary(3L);
+    }
+
+    @Test
+    void shouldExportOwnerBookingsAsCsv() throws Exception {
+        StreamingResponseBody body = out -> out.write("id\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+        when(bookingExportService.exportBookings(anyLong(), any(), any())).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export?format=csv")
+                        .header("X-Sharer-User-Id", 3L)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.csv\""))
+                .andExpect(content().string("id\r\n1\r\n"));
+        verify(bookingExportService).exportBookings(3L, BookingRole.OWNER, BookingExportFormat.CSV);
+    }
+
+    @Test
+    void shouldGetErrorWhenExportFormatIsUnknown() throws Exception {
+        mockMvc.perform(get("/bookings/export?format=xml")
+                        .header("X-Sharer-User-Id", 1L)
+                )
+                .andExpect(status().isBadRequest());
+        verify(bookingExportService, never()).exportBookings(anyLong(), any(), any());
+    }
+
     @Test
     void shouldSetBookingApproveStatus() throws Exception {
         when(bookingService.setBookingApproveStatus(anyLong(), anyLong(), anyBoolean()))
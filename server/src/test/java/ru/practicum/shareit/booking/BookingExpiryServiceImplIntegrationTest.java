@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Transactional
+@SpringBootTest(properties = {
+        "shareit.bookings.expiry.batch-size=2",
+        "shareit.bookings.expiry.max-batches=2"
+})
+class BookingExpiryServiceImplIntegrationTest {
+
+    @Autowired
+    private BookingExpiryService bookingExpiryService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private EntityManager em;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        booker = makeUser("John Doe", "john.doe@gmail.com");
+        item = makeItem(makeUser("The Owner", "owner@gmail.com"));
+    }
+
+    @Test
+    void shouldRejectOnlyStaleWaitingBookings() {
+        List<Booking> stale = makeStaleBookings(3);
+        Booking future = makeBooking(LocalDateTime.now().plusDays(1), BookingStatus.WAITING);
+        Booking approved = makeBooking(LocalDateTime.now().minusDays(10), BookingStatus.APPROVED);
+        em.flush();
+        double expiredBefore = meterRegistry.get("shareit.bookings.expiry.expired").counter().count();
+
+        int expired = bookingExpiryService.expireStale();
+        em.clear();
+
+        assertThat(expired, equalTo(3));
+        for (Booking booking : stale) {
+            assertThat(em.find(Booking.class, booking.getId()).getStatus(), equalTo(BookingStatus.REJECTED));
+        }
+        assertThat(em.find(Booking.class, future.getId()).getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(em.find(Booking.class, approved.getId()).getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(meterRegistry.get("shareit.bookings.expiry.expired").counter().count() - expiredBefore,
+                equalTo(3.0));
+        assertThat(meterRegistry.get("shareit.bookings.expiry.lag").gauge().value(), equalTo(0.0));
+    }
+
+    @Test
+    void shouldStopAfterBatchLimitAndReportLag() {
+        makeStaleBookings(5);
+        em.flush();
+
+        int expired = bookingExpiryService.expireStale();
+
+        assertThat(expired, equalTo(4));
+        assertThat(meterRegistry.get("shareit.bookings.expiry.lag").gauge().value(), greaterThan(0.0));
+    }
+
+    private List<Booking> makeStaleBookings(int count) {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            bookings.add(makeBooking(LocalDateTime.now().minusDays(count - i).minusHours(1), BookingStatus.WAITING));
+        }
+        return bookings;
+    }
+
+    private User makeUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        em.persist(user);
+        return user;
+    }
+
+    private Item makeItem(User owner) {
+        Item item = new Item();
+        item.setName("thing");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+        return item;
+    }
+
+    private Booking makeBooking(LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusHours(12));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        em.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@SpringBootTest
+class BookingExportServiceImplIntegrationTest {
+
+    @Autowired
+    private BookingExportService bookingExportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager em;
+    private User owner;
+    private User booker;
+    private Booking first;
+    private Booking second;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    void setUp() {
+        owner = makeUser("The Owner", "owner@gmail.com");
+        booker = makeUser("John Doe", "john.doe@gmail.com");
+        User other = makeUser("Will Smith", "will.smith@gmail.com");
+        Item item = makeItem("drill, \"big\"", owner);
+        second = makeBooking(item, booker, start.plusDays(3));
+        first = makeBooking(item, booker, start);
+        makeBooking(makeItem("saw", other), booker, start.plusDays(1));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void shouldExportBookerHistoryAsNdjsonOrderedByStart() throws Exception {
+        String[] lines = export(booker.getId(), BookingRole.BOOKER, BookingExportFormat.NDJSON).split("\n");
+
+        assertThat(lines, arrayWithSize(3));
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertThat(row.get("id").asLong(), equalTo(first.getId()));
+        assertThat(row.get("status").asText(), equalTo("WAITING"));
+        assertThat(row.get("itemName").asText(), equalTo("drill, \"big\""));
+        assertThat(row.get("bookerId").asLong(), equalTo(booker.getId()));
+        assertThat(objectMapper.readTree(lines[2]).get("id").asLong(), equalTo(second.getId()));
+    }
+
+    @Test
+    void shouldExportOwnerHistoryAsCsv() throws Exception {
+        String[] lines = export(owner.getId(), BookingRole.OWNER, BookingExportFormat.CSV).split("\r\n");
+
+        assertThat(lines, arrayContaining(
+                "id,start,end,status,itemId,itemName,bookerId",
+                csvRow(first),
+                csvRow(second)
+        ));
+    }
+
+    @Test
+    void shouldGetErrorWhenUserNotFound() {
+        assertThrows(EntryNotFoundException.class,
+                () -> bookingExportService.exportBookings(-1L, BookingRole.BOOKER, BookingExportFormat.CSV));
+    }
+
+    private String export(Long userId, BookingRole role, BookingExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingExportService.exportBookings(userId, role, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String csvRow(Booking booking) {
+        return String.join(",",
+                String.valueOf(booking.getId()),
+                String.valueOf(booking.getStartDate()),
+                String.valueOf(booking.getEndDate()),
+                "WAITING",
+                String.valueOf(booking.getItem().getId()),
+                "\"drill, \"\"big\"\"\"",
+                String.valueOf(booker.getId())
+        );
+    }
+
+    private User makeUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        em.persist(user);
+        return user;
+    }
+
+    private Item makeItem(String name, User owner) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+        return item;
+    }
+
+    private Booking makeBooking(Item item, User booker, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusHours(12));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.WAITING);
+        em.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,208 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/*
+    Задержка списков текущих и ожидающих бронирований, когда в таблице накоплена история
+    за несколько лет (99.5% бронирований завершены). Сравниваются те же запросы, что и в BookingRepository,
+    до и после индексов по end_date и частичных индексов WAITING: прежнее состояние воспроизводится удалением
+    новых индексов в транзакции, которая затем откатывается. Для него открывается отдельное соединение,
+    иначе сервер выбирал бы план для тех же запросов с учетом их стоимости без индексов.
+    Запускается только с адресом базы, например:
+    mvn test -Dtest=BookingHistoryBenchmarkTest -Dshareit.benchmark.url=jdbc:postgresql://localhost:5432/bench
+        -Dshareit.benchmark.user=root -Dshareit.benchmark.password=root
+    При первом запуске в базу добавляется BOOKINGS бронирований, это занимает десятки минут.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.benchmark.url", matches = ".+")
+class BookingHistoryBenchmarkTest {
+
+    private static final int BOOKINGS = 10_000_000;
+    private static final int USERS = 10_000;
+    private static final int ITEMS = 20_000;
+    private static final int RUNS = 500;
+    private static final int PAGE = 21;
+
+    private static final String NEW_INDEXES = "bookings_booker_end_idx, bookings_item_end_idx, " +
+                                              "bookings_item_waiting_start_idx, bookings_booker_waiting_start_idx";
+    private static final String ORDER = " order by b.start_date desc, b.id desc limit " + PAGE;
+    private static final String OWNER_ITEMS = "b.item_id in (select i.id from items i where i.owner_id = ?)";
+
+    private static final String CURRENT_FOR_BOOKER =
+            "select b.* from bookings b where b.booker_id = ? and b.start_date < ? and b.end_date > ?" + ORDER;
+    private static final String CURRENT_FOR_OWNER =
+            "select b.* from bookings b where " + OWNER_ITEMS + " and b.start_date < ? and b.end_date > ?" + ORDER;
+    private static final String WAITING_FOR_BOOKER =
+            "select b.* from bookings b where b.booker_id = ? and b.status = 'WAITING'" + ORDER;
+    private static final String WAITING_FOR_OWNER =
+            "select b.* from bookings b where " + OWNER_ITEMS + " and b.status = 'WAITING'" + ORDER;
+
+    private static Connection connection;
+    private static long firstUserId;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = connect();
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-postgresql.sql"));
+        fill();
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void shouldKeepHotListsFastWithLongHistory() throws SQLException {
+        long[] currentForBooker = measure(connection, CURRENT_FOR_BOOKER, 2);
+        long[] currentForOwner = measure(connection, CURRENT_FOR_OWNER, 2);
+        long[] waitingForBooker = measure(connection, WAITING_FOR_BOOKER, 0);
+        long[] waitingForOwner = measure(connection, WAITING_FOR_OWNER, 0);
+        long[] oldCurrentForBooker;
+        long[] oldCurrentForOwner;
+        long[] oldWaitingForBooker;
+        long[] oldWaitingForOwner;
+        try (Connection old = connect(); Statement statement = old.createStatement()) {
+            old.setAutoCommit(false);
+            statement.execute("drop index " + NEW_INDEXES);
+            oldCurrentForBooker = measure(old, CURRENT_FOR_BOOKER, 2);
+            oldCurrentForOwner = measure(old, CURRENT_FOR_OWNER, 2);
+            oldWaitingForBooker = measure(old, WAITING_FOR_BOOKER, 0);
+            oldWaitingForOwner = measure(old, WAITING_FOR_OWNER, 0);
+            old.rollback();
+        }
+
+        report("CURRENT, арендатор", oldCurrentForBooker, currentForBooker);
+        report("CURRENT, владелец", oldCurrentForOwner, currentForOwner);
+        report("WAITING, арендатор", oldWaitingForBooker, waitingForBooker);
+        report("WAITING, владелец", oldWaitingForOwner, waitingForOwner);
+        assertThat(percentile(currentForBooker, 50), lessThan(percentile(oldCurrentForBooker, 50)));
+        assertThat(percentile(currentForOwner, 50), lessThan(percentile(oldCurrentForOwner, 50)));
+        assertThat(percentile(waitingForBooker, 50), lessThan(percentile(oldWaitingForBooker, 50)));
+        assertThat(percentile(waitingForOwner, 50), lessThan(percentile(oldWaitingForOwner, 50)));
+    }
+
+    /*
+        USERS пользователей, у каждого по две вещи. Бронирования равномерно распределены по арендаторам
+        и вещам; 99.5% начались за последние пять лет и давно завершены (десятая часть отклонена),
+        остальные начинаются от суток назад до месяца вперед, треть из них ждет подтверждения.
+     */
+    private static void fill() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (count(statement, "users") == 0) {
+                statement.executeUpdate("insert into users (name, email) " +
+                                        "select 'user' || n, 'user' || n || '@history.test' " +
+                                        "from generate_series(1, " + USERS + ") n");
+            }
+            firstUserId = min(statement, "users");
+            if (count(statement, "items") == 0) {
+                statement.executeUpdate("insert into items (name, description, is_available, owner_id) " +
+                                        "select 'item' || n, 'description', true, " + firstUserId + " + n % " + USERS +
+                                        " from generate_series(1, " + ITEMS + ") n");
+            }
+            long firstItemId = min(statement, "items");
+            long missing = BOOKINGS - count(statement, "bookings");
+            if (missing <= 0) return;
+            statement.executeUpdate(
+                    "insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                    "select start_date, start_date + (1 + random() * 72) * interval '1 hour', " +
+                    firstItemId + " + floor(random() * " + ITEMS + ")::bigint, " +
+                    firstUserId + " + floor(random() * " + USERS + ")::bigint, status " +
+                    "from (select case when hot " +
+                    "then now() - interval '1 day' + random() * interval '31 days' " +
+                    "else now() - interval '7 days' - random() * interval '5 years' end as start_date, " +
+                    "case when hot and random() < 0.3 then 'WAITING' " +
+                    "when not hot and random() < 0.1 then 'REJECTED' else 'APPROVED' end as status " +
+                    "from (select random() < 0.005 as hot from generate_series(1, " + missing + ")) n) b"
+            );
+            statement.execute("vacuum analyze bookings");
+        }
+    }
+
+    /*
+        Время каждого запуска в наносекундах, по возрастанию; после пользователя в запрос передается
+        nowCount раз now. Первый проход по тем же пользователям не измеряется: он читает в кэш страницы,
+        которые нужны запросу, чтобы оба состояния сравнивались на прогретом кэше.
+     */
+    private static long[] measure(Connection connection, String sql, int nowCount) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long[] times = new long[RUNS];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int pass = 0; pass < 2; pass++) {
+                Random random = new Random(42);
+                for (int run = 0; run < RUNS; run++) {
+                    query.setLong(1, firstUserId + random.nextInt(USERS));
+                    for (int i = 0; i < nowCount; i++) {
+                        query.setTimestamp(i + 2, now);
+                    }
+                    long started = System.nanoTime();
+                    try (ResultSet rows = query.executeQuery()) {
+                        while (rows.next()) {
+                            rows.getLong(1);
+                        }
+                    }
+                    times[run] = System.nanoTime() - started;
+                }
+            }
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("shareit.benchmark.url"),
+                System.getProperty("shareit.benchmark.user"),
+                System.getProperty("shareit.benchmark.password")
+        );
+    }
+
+    private static void report(String list, long[] before, long[] after) {
+        log.info("{} среди {} бронирований: до p50 {} мс, p99 {} мс; после p50 {} мс, p99 {} мс",
+                list, BOOKINGS, millis(percentile(before, 50)), millis(percentile(before, 99)),
+                millis(percentile(after, 50)), millis(percentile(after, 99)));
+    }
+
+    private static long count(Statement statement, String table) throws SQLException {
+        try (ResultSet count = statement.executeQuery("select count(*) from " + table)) {
+            count.next();
+            return count.getLong(1);
+        }
+    }
+
+    private static long min(Statement statement, String table) throws SQLException {
+        try (ResultSet min = statement.executeQuery("select min(id) from " + table)) {
+            min.next();
+            return min.getLong(1);
+        }
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
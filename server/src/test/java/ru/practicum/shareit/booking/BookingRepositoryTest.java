@@ -13,8 +13,12 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -80,7 +84,7 @@ class BookingRepositoryTest {
     @Test
     void shouldFindAllCurrentForBooker() {
 
-        var result = bookingRepository.findAllCurrentForBooker(
+        var result = bookingRepository.findCurrentForBooker(
                 users.get(0).getId(), LocalDateTime.now(), PageRequest.of(0, 10)
         );
 
@@ -96,7 +100,7 @@ class BookingRepositoryTest {
     @Test
     void shouldFindAllCurrentForOwner() {
 
-        var result = bookingRepository.findAllCurrentForOwner(
+        var result = bookingRepository.findCurrentForOwner(
                 users.get(2).getId(), LocalDateTime.now(), PageRequest.of(0, 10)
         );
 
@@ -109,10 +113,30 @@ class BookingRepositoryTest {
                 BookingMapper.toBookingDto(targetBookings), BookingMapper.toBookingDto(sourceBookings));
     }
 
+    @Test
+    void shouldFindOnlyNearestBookingsForItems() {
+        var earlierPast = makeBooking(
+                LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(9), items.get(1), users.get(0)
+        );
+        var laterFuture = makeBooking(
+                LocalDateTime.now().plusDays(10), LocalDateTime.now().plusDays(11), items.get(0), users.get(1)
+        );
+        em.flush();
+
+        var nextBookings = bookingRepository.findNextBookingsFor(itemIds(), LocalDateTime.now());
+        var lastBookings = bookingRepository.findLastBookingsFor(itemIds(), LocalDateTime.now());
+
+        assertThat(nextBookings.stream().map(Booking::getId).collect(Collectors.toList()),
+                contains(bookings.get(1).getId()));
+        assertThat(lastBookings.stream().map(Booking::getId).collect(Collectors.toList()),
+                contains(bookings.get(0).getId(), bookings.get(2).getId()));
+        assertThat(nextBookings.contains(laterFuture) || lastBookings.contains(earlierPast), is(false));
+    }
+
     @Test
     void shouldFindNextBookingsForItems() {
 
-        var targetBookings = bookingRepository.findNextBookingsFor(items, LocalDateTime.now());
+        var targetBookings = bookingRepository.findNextBookingsFor(itemIds(), LocalDateTime.now());
 
         var sourceBookings = List.of(bookings.get(1));
 
@@ -123,7 +147,7 @@ class BookingRepositoryTest {
     @Test
     void shouldFindLastBookingsForItems() {
 
-        var targetBookings = bookingRepository.findLastBookingsFor(items, LocalDateTime.now());
+        var targetBookings = bookingRepository.findLastBookingsFor(itemIds(), LocalDateTime.now());
 
         var sourceBookings = List.of(bookings.get(0), bookings.get(2));
 
@@ -131,6 +155,60 @@ class BookingRepositoryTest {
                 BookingMapper.toBookingDto(targetBookings), BookingMapper.toBookingDto(sourceBookings));
     }
 
+    @Test
+    void shouldFindOverlappingBookings() {
+        var approved = EnumSet.of(BookingStatus.APPROVED);
+        var occupying = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+        em.clear();
+        // берем дату из базы: при сохранении она округляется до микросекунд
+        var start = bookingRepository.findById(bookings.get(3).getId()).orElseThrow().getStartDate();
+
+        assertThat(bookingRepository.existsOverlapping(
+                items.get(0).getId(), start.minusHours(1), start.plusHours(1), approved), is(false));
+        assertThat(bookingRepository.existsOverlapping(
+                items.get(0).getId(), start.minusHours(1), start.plusHours(1), occupying), is(true));
+        assertThat(bookingRepository.existsOverlapping(
+                items.get(0).getId(), start.minusHours(1), start, occupying), is(false));
+        assertThat(bookingRepository.existsOverlapping(
+                items.get(1).getId(), start.minusHours(1), start.plusHours(1), occupying), is(false));
+    }
+
+    @Test
+    void shouldFindOwnerBookingsBeforeCursor() {
+        em.clear();
+        // порядок по убыванию startDate: 3, 1, 2, 0
+        var firstPage = bookingRepository.findAllForOwnerBefore(
+                users.get(2).getId(), LocalDateTime.now().plusYears(1), Long.MAX_VALUE, PageRequest.of(0, 2)
+        );
+
+        assertThat(ids(firstPage), contains(bookings.get(3).getId(), bookings.get(1).getId()));
+
+        var last = firstPage.get(firstPage.size() - 1);
+        var secondPage = bookingRepository.findAllForOwnerBefore(
+                users.get(2).getId(), last.getStartDate(), last.getId(), PageRequest.of(0, 2)
+        );
+
+        assertThat(ids(secondPage), contains(bookings.get(2).getId(), bookings.get(0).getId()));
+    }
+
+    @Test
+    void shouldFindBookerBookingsByStatusBeforeCursor() {
+        var result = bookingRepository.findByStatusForBookerBefore(
+                users.get(1).getId(), BookingStatus.WAITING,
+                LocalDateTime.now().plusYears(1), Long.MAX_VALUE, PageRequest.of(0, 10)
+        );
+
+        assertThat(ids(result), contains(bookings.get(3).getId()));
+    }
+
+    private static List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> itemIds() {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
     private User makeUser(String name, String email) {
         User user = new User();
         user.setName(name);
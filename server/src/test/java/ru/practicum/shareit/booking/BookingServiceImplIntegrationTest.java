@@ -1,14 +1,20 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingStateFilter;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.ItemNotAvailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -17,8 +23,17 @@ import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 @Transactional
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingServiceImplIntegrationTest {
 
     @Autowired
@@ -71,6 +86,184 @@ class BookingServiceImplIntegrationTest {
         BookingServiceImplTest.checkResult(targetBookings, BookingMapper.toBookingDto(sourceBookings));
     }
 
+    @Test
+    void shouldGetUserBookingsByCursor() {
+        em.clear();
+
+        var firstPage = bookingService.getUserBookings(
+                users.get(0).getId(), BookingStateFilter.ALL, 0, 1);
+        var secondPage = bookingService.getUserBookings(
+                users.get(0).getId(), BookingStateFilter.ALL, BookingCursor.after(firstPage.get(0)), 1);
+        var lastPage = bookingService.getUserBookings(
+                users.get(0).getId(), BookingStateFilter.ALL, BookingCursor.after(secondPage.get(0)), 1);
+
+        assertThat(firstPage.get(0).getId(), equalTo(sourceBookings.get(0).getId()));
+        assertThat(secondPage.get(0).getId(), equalTo(sourceBookings.get(1).getId()));
+        assertThat(lastPage, empty());
+    }
+
+    @Test
+    void shouldNotCountRowsWhenGetBookings() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        for (BookingStateFilter state : BookingStateFilter.values()) {
+            statistics.clear();
+
+            bookingService.getUserBookings(users.get(0).getId(), state, 0, 1);
+            bookingService.getOwnerBookings(users.get(2).getId(), state, 0, 1);
+
+            assertThat(state.name(), statistics.getQueryExecutionCount(), is(2L));
+        }
+    }
+
+    @Test
+    void shouldGetBookingsWithConstantNumberOfStatements() {
+        for (int i = 0; i < 5; i++) {
+            makeBooking(
+                    LocalDateTime.now().plusDays(10 + i),
+                    LocalDateTime.now().plusDays(11 + i),
+                    makeItem("thing " + i, "desc", users.get(2)),
+                    users.get(1)
+            );
+        }
+        em.flush();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        BookingCursor cursor = new BookingCursor(LocalDateTime.now().plusYears(1), Long.MAX_VALUE);
+
+        for (BookingStateFilter state : BookingStateFilter.values()) {
+            for (int size : List.of(1, 20)) {
+                em.clear();
+                statistics.clear();
+                bookingService.getUserBookings(users.get(1).getId(), state, 0, size);
+                // пользователь и бронирования вместе с вещами и бронирующими
+                assertThat(state.name(), statistics.getPrepareStatementCount(), is(2L));
+
+                em.clear();
+                statistics.clear();
+                bookingService.getOwnerBookings(users.get(2).getId(), state, 0, size);
+                assertThat(state.name(), statistics.getPrepareStatementCount(), is(2L));
+
+                em.clear();
+                statistics.clear();
+                bookingService.getOwnerBookings(users.get(2).getId(), state, cursor, size);
+                assertThat(state.name(), statistics.getPrepareStatementCount(), is(2L));
+            }
+        }
+    }
+
+    @Test
+    void shouldCreateBookingsInBatch() {
+        Item item = sourceBookings.get(0).getItem();
+        Item anotherItem = sourceBookings.get(1).getItem();
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        List<BookingInDto> bookings = List.of(
+                new BookingInDto(item.getId(), start, start.plusDays(1)),
+                new BookingInDto(anotherItem.getId(), start, start.plusDays(1)),
+                new BookingInDto(item.getId(), start.plusDays(1), start.plusDays(2))
+        );
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var created = bookingService.createBookings(users.get(1).getId(), bookings);
+
+        // пользователь, вещи, блокировка вещей, занятые периоды, вставка и блокировка строк счетчиков,
+        // два запроса к счетчикам;
+        // пакет вставок идет через JdbcTemplate и в статистику Hibernate не попадает
+        assertThat(statistics.getPrepareStatementCount(), is(8L));
+        assertThat(created, hasSize(3));
+        for (int i = 0; i < bookings.size(); i++) {
+            assertThat(created.get(i).getId(), notNullValue());
+            assertThat(created.get(i).getItem().getId(), equalTo(bookings.get(i).getItemId()));
+            assertThat(created.get(i).getStatus(), is(BookingStatus.WAITING));
+        }
+        em.clear();
+        assertThat(em.find(Booking.class, created.get(2).getId()).getBooker().getId(), equalTo(users.get(1).getId()));
+    }
+
+    @Test
+    void shouldNotCreateAnyBookingWhenOneOverlaps() {
+        Item item = sourceBookings.get(0).getItem();
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        List<BookingInDto> bookings = List.of(
+                new BookingInDto(item.getId(), start, start.plusDays(2)),
+                new BookingInDto(item.getId(), start.plusDays(1), start.plusDays(3))
+        );
+
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.createBookings(users.get(1).getId(), bookings));
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.createBookings(users.get(1).getId(), List.of(
+                        new BookingInDto(item.getId(), start, start.plusDays(1)),
+                        new BookingInDto(item.getId(), sourceBookings.get(0).getStartDate(),
+                                sourceBookings.get(0).getEndDate())
+                )));
+        assertThat(bookingService.getUserBookings(users.get(1).getId(), BookingStateFilter.ALL, 0, 20), empty());
+    }
+
+    @Test
+    void shouldApplyBookingDecisionsInOneStatement() {
+        Item item = sourceBookings.get(0).getItem();
+        Booking overlapping = makeBooking(
+                LocalDateTime.now().plusDays(1).plusHours(1),
+                LocalDateTime.now().plusDays(3),
+                item,
+                users.get(1)
+        );
+        Booking later = makeBooking(
+                LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(6),
+                item,
+                users.get(1)
+        );
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var results = bookingService.setBookingsApproveStatus(users.get(2).getId(), List.of(
+                new BookingDecisionDto(sourceBookings.get(0).getId(), true),
+                new BookingDecisionDto(overlapping.getId(), true),
+                new BookingDecisionDto(later.getId(), true),
+                new BookingDecisionDto(sourceBookings.get(1).getId(), false),
+                new BookingDecisionDto(later.getId(), false),
+                new BookingDecisionDto(Long.MAX_VALUE, true)
+        ));
+
+        // пользователь, бронирования, блокировка вещей, занятые периоды, UPDATE статусов,
+        // вставка и блокировка строк счетчиков, два запроса к счетчикам, ссылки вещей
+        assertThat(statistics.getPrepareStatementCount(), is(10L));
+        assertThat(results, hasSize(6));
+        assertThat(results.get(0).getBooking().getStatus(), is(BookingStatus.APPROVED));
+        assertThat(results.get(1).getError(), notNullValue());
+        assertThat(results.get(2).getBooking().getStatus(), is(BookingStatus.APPROVED));
+        assertThat(results.get(3).getBooking().getStatus(), is(BookingStatus.REJECTED));
+        assertThat(results.get(4).getError(), notNullValue());
+        assertThat(results.get(5).getError(), notNullValue());
+
+        em.clear();
+        assertThat(em.find(Booking.class, sourceBookings.get(0).getId()).getStatus(), is(BookingStatus.APPROVED));
+        assertThat(em.find(Booking.class, overlapping.getId()).getStatus(), is(BookingStatus.WAITING));
+        assertThat(em.find(Booking.class, later.getId()).getStatus(), is(BookingStatus.APPROVED));
+        assertThat(em.find(Booking.class, sourceBookings.get(1).getId()).getStatus(), is(BookingStatus.REJECTED));
+        assertThat(em.find(Item.class, item.getId()).getNextBooking().getId(),
+                equalTo(sourceBookings.get(0).getId()));
+        var ownerSummary = bookingService.getOwnerBookingSummary(users.get(2).getId());
+        assertThat(ownerSummary.get(BookingStateFilter.WAITING), is(1L));
+        assertThat(ownerSummary.get(BookingStateFilter.REJECTED), is(1L));
+    }
+
+    @Test
+    void shouldNotApplyDecisionsForOtherOwnerBookings() {
+        var results = bookingService.setBookingsApproveStatus(users.get(1).getId(), List.of(
+                new BookingDecisionDto(sourceBookings.get(0).getId(), true)
+        ));
+
+        assertThat(results.get(0).getBooking(), nullValue());
+        em.clear();
+        assertThat(em.find(Booking.class, sourceBookings.get(0).getId()).getStatus(), is(BookingStatus.WAITING));
+    }
+
     private User makeUser(String name, String email) {
         User user = new User();
         user.setName(name);
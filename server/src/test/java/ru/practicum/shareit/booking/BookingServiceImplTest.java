@@ -5,8 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
@@ -41,6 +41,8 @@ class BookingServiceImplTest {
     private BookingRepository bookingRepository;
     @MockBean
     private ItemRepository itemRepository;
+    @MockBean
+    private BookingCountersRepository bookingCountersRepository;
 
     @Autowired
     private BookingService bookingService;
@@ -243,6 +245,25 @@ class BookingServiceImplTest {
         assertThat(exception.getMessage(), notNullValue());
     }
 
+    @Test
+    void shouldThrowOnCreateBookingWhenPeriodOverlaps() {
+        Item item = makeItem(1L, "thing", "desc", users.get(2));
+
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(anyLong(), any(), any(), anyCollection())).thenReturn(true);
+
+        final ItemNotAvailableException exception = assertThrows(
+                ItemNotAvailableException.class,
+                () -> bookingService.createBooking(BOOKER_USER_ID1,
+                        new BookingInDto(
+                                item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)
+                        ))
+        );
+
+        assertThat(exception.getMessage(), notNullValue());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void shouldSetBookingApproveStatus() {
 
@@ -285,17 +306,29 @@ class BookingServiceImplTest {
         assertThat(exception.getMessage(), notNullValue());
     }
 
+    @Test
+    void shouldThrowOnSetBookingApproveStatusWhenPeriodOverlaps() {
+
+        when(bookingRepository.findById(anyLong()))
+                .thenReturn(Optional.of(sourceBooking));
+        when(bookingRepository.existsOverlapping(anyLong(), any(), any(), anyCollection())).thenReturn(true);
+
+        final ItemNotAvailableException exception = assertThrows(
+                ItemNotAvailableException.class,
+                () -> bookingService.setBookingApproveStatus(OWNER_USER_ID, sourceBooking.getId(), true)
+        );
+
+        assertThat(exception.getMessage(), notNullValue());
+        assertThat(sourceBooking.getStatus(), equalTo(BookingStatus.WAITING));
+    }
+
     @Test
     void shouldGetAllUserBookings() {
 
-        when(bookingRepository.findByBooker_Id(anyLong(), any()))
+        when(bookingRepository.findAllForBooker(anyLong(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getUserBookings(
@@ -307,14 +340,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetPastUserBookings() {
 
-        when(bookingRepository.findByBooker_IdAndEndDateIsBefore(anyLong(), any(), any()))
+        when(bookingRepository.findPastForBooker(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getUserBookings(
@@ -326,14 +355,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetCurrentUserBookings() {
 
-        when(bookingRepository.findAllCurrentForBooker(anyLong(), any(), any()))
+        when(bookingRepository.findCurrentForBooker(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getUserBookings(
@@ -345,14 +370,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetFutureUserBookings() {
 
-        when(bookingRepository.findByBooker_IdAndStartDateIsAfter(anyLong(), any(), any()))
+        when(bookingRepository.findFutureForBooker(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getUserBookings(
@@ -378,14 +399,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetRejectedAndWaitingUserBookings() {
 
-        when(bookingRepository.findByBooker_IdAndStatusIs(anyLong(), any(), any()))
+        when(bookingRepository.findByStatusForBooker(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getUserBookings(
@@ -402,14 +419,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetAllOwnerBookings() {
 
-        when(bookingRepository.findByItem_Owner_Id(anyLong(), any()))
+        when(bookingRepository.findAllForOwner(anyLong(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getOwnerBookings(
@@ -421,14 +434,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetPastOwnerBookings() {
 
-        when(bookingRepository.findByItem_Owner_IdAndEndDateIsBefore(anyLong(), any(), any()))
+        when(bookingRepository.findPastForOwner(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getOwnerBookings(
@@ -440,14 +449,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetCurrentOwnerBookings() {
 
-        when(bookingRepository.findAllCurrentForOwner(anyLong(), any(), any()))
+        when(bookingRepository.findCurrentForOwner(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getOwnerBookings(
@@ -459,14 +464,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetFutureOwnerBookings() {
 
-        when(bookingRepository.findByItem_Owner_IdAndStartDateIsAfter(anyLong(), any(), any()))
+        when(bookingRepository.findFutureForOwner(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getOwnerBookings(
@@ -478,14 +479,10 @@ class BookingServiceImplTest {
     @Test
     void shouldGetRejectedAndWaitingOwnerBookings() {
 
-        when(bookingRepository.findByItem_Owner_IdAndStatusIs(anyLong(), any(), any()))
+        when(bookingRepository.findByStatusForOwner(anyLong(), any(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(2, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceBookings,
-                            pageRequest,
-                            sourceBookings.size()
-                    );
+                    return new SliceImpl<>(sourceBookings, pageRequest, false);
                 });
 
         var targetBookings = bookingService.getOwnerBookings(
@@ -0,0 +1,173 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.ErrorHandler;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BookingStreamServiceImplTest {
+
+    private static final long OWNER_ID = 3L;
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final List<Runnable> pendingSends = new ArrayList<>();
+    private BookingStreamServiceImpl bookingStreamService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.existsById(OWNER_ID)).thenReturn(true);
+        useSender(Runnable::run, 100, 128);
+    }
+
+    @Test
+    void shouldStreamOnlyOwnBookings() throws Exception {
+        MvcResult stream = subscribe(null);
+
+        bookingStreamService.publish(OWNER_ID, makeBookingDto(1L));
+        bookingStreamService.publish(OWNER_ID + 1, makeBookingDto(2L));
+
+        String content = stream.getResponse().getContentAsString();
+        assertThat(content, containsString("retry:5000"));
+        assertThat(content, containsString("event:booking"));
+        assertThat(content, containsString("\"id\":1,"));
+        assertThat(content, not(containsString("\"id\":2,")));
+    }
+
+    @Test
+    void shouldReplayEventsAfterLastEventId() throws Exception {
+        MvcResult stream = subscribe(null);
+        for (long id = 1; id <= 3; id++) {
+            bookingStreamService.publish(OWNER_ID, makeBookingDto(id));
+        }
+        List<Long> eventIds = eventIds(stream.getResponse().getContentAsString());
+        assertThat(eventIds, hasSize(3));
+
+        String resumed = subscribe(eventIds.get(1)).getResponse().getContentAsString();
+
+        assertThat(resumed, not(containsString("event:reset")));
+        assertThat(eventIds(resumed), contains(eventIds.get(2)));
+    }
+
+    @Test
+    void shouldSendResetWhenMissedEventsAreForgotten() throws Exception {
+        MvcResult stream = subscribe(null);
+        // в буфере повтора остаются только 100 последних событий
+        for (long id = 1; id <= 101; id++) {
+            bookingStreamService.publish(OWNER_ID, makeBookingDto(id));
+        }
+        Long firstEventId = eventIds(stream.getResponse().getContentAsString()).get(0);
+
+        String resumed = subscribe(firstEventId - 1).getResponse().getContentAsString();
+
+        assertThat(resumed, containsString("event:reset"));
+        assertThat(eventIds(resumed), hasSize(100));
+    }
+
+    @Test
+    void shouldSendResetInsteadOfReplayThatOverflowsBuffer() throws Exception {
+        useSender(pendingSends::add, 10, 11);
+        for (long id = 1; id <= 11; id++) {
+            bookingStreamService.publish(OWNER_ID, makeBookingDto(id));
+        }
+
+        MvcResult stream = subscribe(0L);
+        bookingStreamService.publish(OWNER_ID, makeBookingDto(12L));
+        pendingSends.forEach(Runnable::run);
+
+        String content = stream.getResponse().getContentAsString();
+        assertThat(content, containsString("event:reset"));
+        assertThat(eventIds(content), hasSize(1));
+        assertThat(content, containsString("\"id\":12,"));
+    }
+
+    @Test
+    void shouldRejectBufferSmallerThanReplay() {
+        assertThrows(IllegalArgumentException.class, () -> useSender(Runnable::run, 100, 100));
+    }
+
+    @Test
+    void shouldDisconnectSubscriberWhenBufferOverflows() throws Exception {
+        useSender(pendingSends::add, 1, 2);
+        MvcResult stream = subscribe(null);
+
+        for (long id = 1; id <= 3; id++) {
+            bookingStreamService.publish(OWNER_ID, makeBookingDto(id));
+        }
+        pendingSends.forEach(Runnable::run);
+
+        assertThat(stream.getResponse().getContentAsString(), not(containsString("event:booking")));
+    }
+
+    @Test
+    void shouldGetErrorWhenOwnerNotFound() throws Exception {
+        mockMvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 99L)
+                )
+                .andExpect(status().isNotFound());
+    }
+
+    private void useSender(Executor sender, int replaySize, int bufferSize) {
+        bookingStreamService = new BookingStreamServiceImpl(
+                userRepository, sender, 60_000, replaySize, 60_000, bufferSize
+        );
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new BookingController(
+                        mock(BookingService.class), bookingStreamService, mock(BookingExportService.class)
+                ))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    private MvcResult subscribe(Long lastEventId) throws Exception {
+        var request = get("/bookings/owner/stream").header("X-Sharer-User-Id", OWNER_ID);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static List<Long> eventIds(String content) {
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = EVENT_ID.matcher(content);
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+
+    private static BookingDto makeBookingDto(Long id) {
+        return new BookingDto(
+                id,
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                BookingStatus.WAITING,
+                null,
+                null
+        );
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingInDto;
+import ru.practicum.shareit.booking.dto.BookingStateFilter;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCounters;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Transactional
+@SpringBootTest
+class BookingSummaryServiceImplIntegrationTest {
+
+    @Autowired
+    private BookingSummaryService bookingSummaryService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private EntityManager em;
+    private List<User> users;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        users = List.of(
+                makeUser("John Doe", "john.doe@gmail.com"),
+                makeUser("The Owner", "owner@gmail.com")
+        );
+        item = makeItem("thing", "desc", users.get(1));
+        em.flush();
+    }
+
+    @Test
+    void shouldRecountSummaryWithoutCounters() {
+        makeBooking(LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+        makeBooking(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), BookingStatus.APPROVED);
+        makeBooking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), BookingStatus.WAITING);
+        makeBooking(LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4), BookingStatus.REJECTED);
+        em.flush();
+
+        Map<BookingStateFilter, Long> expected = Map.of(
+                BookingStateFilter.ALL, 4L,
+                BookingStateFilter.PAST, 1L,
+                BookingStateFilter.CURRENT, 1L,
+                BookingStateFilter.FUTURE, 2L,
+                BookingStateFilter.WAITING, 1L,
+                BookingStateFilter.REJECTED, 1L
+        );
+        assertThat(bookingSummaryService.getSummary(users.get(0).getId(), BookingRole.BOOKER), equalTo(expected));
+        assertThat(bookingSummaryService.getSummary(users.get(1).getId(), BookingRole.OWNER), equalTo(expected));
+    }
+
+    @Test
+    void shouldUpdateSummaryWhenBookingCreatedAndRejected() {
+        bookingService.getUserBookingSummary(users.get(0).getId());
+        bookingService.getOwnerBookingSummary(users.get(1).getId());
+
+        var booking = bookingService.createBooking(users.get(0).getId(), new BookingInDto(
+                item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)
+        ));
+        em.clear();
+        var summary = bookingService.getUserBookingSummary(users.get(0).getId());
+        assertThat(summary.get(BookingStateFilter.FUTURE), equalTo(1L));
+        assertThat(summary.get(BookingStateFilter.WAITING), equalTo(1L));
+
+        bookingService.setBookingApproveStatus(users.get(1).getId(), booking.getId(), false);
+        em.clear();
+        summary = bookingService.getOwnerBookingSummary(users.get(1).getId());
+        assertThat(summary.get(BookingStateFilter.ALL), equalTo(1L));
+        assertThat(summary.get(BookingStateFilter.WAITING), equalTo(0L));
+        assertThat(summary.get(BookingStateFilter.REJECTED), equalTo(1L));
+    }
+
+    @Test
+    void shouldMoveStartedBookingToCurrent() {
+        makeBooking(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), BookingStatus.APPROVED);
+        BookingCounters counters = new BookingCounters(1L, 0L, 0L, 0L, 0L);
+        counters.setUserId(users.get(0).getId());
+        counters.setRole(BookingRole.BOOKER);
+        counters.setCountedAt(LocalDateTime.now().minusHours(2));
+        em.persist(counters);
+        em.flush();
+
+        var summary = bookingSummaryService.getSummary(users.get(0).getId(), BookingRole.BOOKER);
+
+        assertThat(summary.get(BookingStateFilter.CURRENT), equalTo(1L));
+        assertThat(summary.get(BookingStateFilter.FUTURE), equalTo(0L));
+        assertThat(summary.get(BookingStateFilter.PAST), equalTo(0L));
+    }
+
+    private User makeUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        em.persist(user);
+        return user;
+    }
+
+    private Item makeItem(String name, String desc, User owner) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(desc);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+        return item;
+    }
+
+    private Booking makeBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setItem(item);
+        booking.setBooker(users.get(0));
+        booking.setStatus(status);
+        em.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.error.InvalidRequestParamsException;
+import ru.practicum.shareit.item.dto.TimeRangeDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class ItemAvailabilityServiceImplTest {
+
+    private static final long ITEM_ID = 1L;
+
+    @MockBean
+    private ItemRepository itemRepository;
+    @MockBean
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemAvailabilityService itemAvailabilityService;
+
+    private final LocalDateTime day = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS);
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        itemAvailabilityService.invalidate(ITEM_ID);
+        item = new Item();
+        item.setId(ITEM_ID);
+        when(itemRepository.existsById(ITEM_ID)).thenReturn(true);
+    }
+
+    @Test
+    void shouldRoundBusyRangesToWholeHours() {
+        when(bookingRepository.findForItemsBetween(anyCollection(), any(), any(), anyCollection()))
+                .thenReturn(List.of(makeBooking(day.plusHours(10).plusMinutes(15), day.plusHours(11).plusMinutes(30))));
+
+        var availability = itemAvailabilityService.getAvailability(
+                ITEM_ID, day.plusHours(8).plusMinutes(30), day.plusHours(14)
+        );
+
+        assertThat(availability.getBusy(), contains(range(day.plusHours(10), day.plusHours(12))));
+        assertThat(availability.getFree(), contains(
+                range(day.plusHours(8).plusMinutes(30), day.plusHours(10)),
+                range(day.plusHours(12), day.plusHours(14))
+        ));
+    }
+
+    @Test
+    void shouldServeRepeatedRequestsAndApprovalsFromMemory() {
+        when(bookingRepository.findForItemsBetween(anyCollection(), any(), any(), anyCollection()))
+                .thenReturn(List.of(makeBooking(day.plusHours(1), day.plusHours(2))));
+        itemAvailabilityService.getAvailability(ITEM_ID, day, day.plusDays(1));
+
+        itemAvailabilityService.bookingApproved(makeBooking(day.plusHours(5), day.plusHours(7)));
+        var availability = itemAvailabilityService.getAvailability(ITEM_ID, day, day.plusDays(1));
+
+        assertThat(availability.getBusy(), contains(
+                range(day.plusHours(1), day.plusHours(2)),
+                range(day.plusHours(5), day.plusHours(7))
+        ));
+        verify(bookingRepository, times(1)).findForItemsBetween(anyCollection(), any(), any(), anyCollection());
+    }
+
+    @Test
+    void shouldReloadCalendarAfterInvalidate() {
+        when(bookingRepository.findForItemsBetween(anyCollection(), any(), any(), anyCollection()))
+                .thenReturn(List.of(makeBooking(day.plusHours(1), day.plusHours(2))))
+                .thenReturn(List.of());
+        itemAvailabilityService.getAvailability(ITEM_ID, day, day.plusDays(1));
+
+        itemAvailabilityService.invalidate(ITEM_ID);
+        var availability = itemAvailabilityService.getAvailability(ITEM_ID, day, day.plusDays(1));
+
+        assertThat(availability.getBusy(), empty());
+        assertThat(availability.getFree(), contains(range(day, day.plusDays(1))));
+    }
+
+    @Test
+    void shouldLoadPeriodOutsideCalendarFromDatabase() {
+        LocalDateTime past = day.minusYears(1);
+        when(bookingRepository.findForItemsBetween(anyCollection(), any(), any(), anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(makeBooking(past.plusHours(3), past.plusHours(4))));
+
+        var availability = itemAvailabilityService.getAvailability(ITEM_ID, past, past.plusDays(1));
+
+        assertThat(availability.getBusy(), contains(range(past.plusHours(3), past.plusHours(4))));
+    }
+
+    @Test
+    void shouldGetErrorWhenPeriodIsInvalid() {
+        assertThrows(InvalidRequestParamsException.class,
+                () -> itemAvailabilityService.getAvailability(ITEM_ID, day, day));
+        assertThrows(InvalidRequestParamsException.class,
+                () -> itemAvailabilityService.getAvailability(ITEM_ID, day, day.plusYears(2)));
+    }
+
+    @Test
+    void shouldGetErrorWhenItemNotFound() {
+        assertThrows(EntryNotFoundException.class,
+                () -> itemAvailabilityService.getAvailability(ITEM_ID + 1, day, day.plusDays(1)));
+    }
+
+    private Booking makeBooking(LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setItem(item);
+        booking.setStatus(BookingStatus.APPROVED);
+        return booking;
+    }
+
+    private static TimeRangeDto range(LocalDateTime start, LocalDateTime end) {
+        return new TimeRangeDto(start, end);
+    }
+}
@@ -0,0 +1,143 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@Transactional
+@SpringBootTest
+class ItemBookingPointerServiceImplIntegrationTest {
+
+    @Autowired
+    private ItemBookingPointerService itemBookingPointerService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private EntityManager em;
+    private List<User> users;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        users = List.of(
+                makeUser("John Doe", "john.doe@gmail.com"),
+                makeUser("The Owner", "owner@gmail.com")
+        );
+        item = makeItem("thing", "desc", users.get(1));
+        em.flush();
+    }
+
+    @Test
+    void shouldPointToNearestApprovedBooking() {
+        Booking later = makeBooking(LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4),
+                BookingStatus.WAITING);
+        Booking sooner = makeBooking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.WAITING);
+        em.flush();
+
+        bookingService.setBookingApproveStatus(users.get(1).getId(), later.getId(), true);
+        em.refresh(item);
+        assertThat(item.getNextBooking().getId(), equalTo(later.getId()));
+
+        bookingService.setBookingApproveStatus(users.get(1).getId(), sooner.getId(), true);
+        em.refresh(item);
+        assertThat(item.getNextBooking().getId(), equalTo(sooner.getId()));
+        assertThat(item.getLastBooking(), nullValue());
+    }
+
+    @Test
+    void shouldRefreshPointersWhenNextBookingRejected() {
+        Booking sooner = makeBooking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.APPROVED);
+        Booking later = makeBooking(LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4),
+                BookingStatus.APPROVED);
+        item.setNextBooking(sooner);
+        em.flush();
+
+        bookingService.setBookingApproveStatus(users.get(1).getId(), sooner.getId(), false);
+        em.refresh(item);
+
+        assertThat(item.getNextBooking().getId(), equalTo(later.getId()));
+    }
+
+    @Test
+    void shouldRollForwardStartedNextBooking() {
+        Booking started = makeBooking(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1),
+                BookingStatus.APPROVED);
+        Booking future = makeBooking(LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+                BookingStatus.APPROVED);
+        item.setNextBooking(started);
+        em.flush();
+
+        itemBookingPointerService.rollForward();
+        em.refresh(item);
+
+        assertThat(item.getLastBooking().getId(), equalTo(started.getId()));
+        assertThat(item.getNextBooking().getId(), equalTo(future.getId()));
+    }
+
+    @Test
+    void shouldRebuildPointersFromBookings() {
+        Booking past = makeBooking(LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                BookingStatus.APPROVED);
+        Booking future = makeBooking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.APPROVED);
+        makeBooking(LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), BookingStatus.REJECTED);
+        em.flush();
+        Long version = item.getVersion();
+
+        assertThat(itemBookingPointerService.rebuild(), is(1));
+        Item rebuilt = em.find(Item.class, item.getId());
+        assertThat(rebuilt.getLastBooking().getId(), equalTo(past.getId()));
+        assertThat(rebuilt.getNextBooking().getId(), equalTo(future.getId()));
+        assertThat(rebuilt.getVersion(), equalTo(version));
+
+        assertThat(itemBookingPointerService.rebuild(), is(0));
+    }
+
+    private User makeUser(String name, String email) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        em.persist(user);
+        return user;
+    }
+
+    private Item makeItem(String name, String desc, User owner) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(desc);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+        return item;
+    }
+
+    private Booking makeBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setItem(item);
+        booking.setBooker(users.get(0));
+        booking.setStatus(status);
+        em.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemInDto;
+import ru.practicum.shareit.item.dto.TimeRangeDto;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/*
+    Кэши карточек, поиска и календарей включены и работают поверх базы, без моков. Изменения
+    фиксируются, поэтому кэши очищаются так же, как в работе: после фиксации транзакции.
+    Данные удаляются после каждого теста.
+ */
+@SpringBootTest(properties = {
+        "shareit.items.details.cache.max-items=1000",
+        "shareit.items.search.cache.max-size=1000"
+})
+class ItemCachesIntegrationTest {
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemAvailabilityService itemAvailabilityService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private User owner;
+    private User booker;
+    private ItemDto item;
+
+    @BeforeEach
+    void setUp() {
+        owner = makeUser("The Owner");
+        booker = makeUser("John Doe");
+        item = itemService.createItem(owner.getId(), new ItemInDto("Дрель", "ударная", true, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void shouldServeItemFromCacheUntilUpdateIsCommitted() {
+        double hitsBefore = itemHits();
+        itemService.getItemById(booker.getId(), item.getId());
+        itemService.getItemById(booker.getId(), item.getId());
+        assertThat(itemHits() - hitsBefore, equalTo(1.0));
+
+        // читатель во время изменения видит прежнюю вещь и не должен оставить ее в кэше после фиксации
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.updateItem(owner.getId(), item.getId(), new ItemInDto("Перфоратор", null, null, null));
+            String concurrentRead = CompletableFuture
+                    .supplyAsync(() -> itemService.getItemById(booker.getId(), item.getId()).getName())
+                    .join();
+            assertThat(concurrentRead, equalTo("Дрель"));
+        });
+
+        assertThat(itemService.getItemById(booker.getId(), item.getId()).getName(), equalTo("Перфоратор"));
+    }
+
+    @Test
+    void shouldDropSearchPagesMatchingChangedItemAfterCommit() {
+        assertThat(search("дрель"), contains(item.getId()));
+        double hitsBefore = searchHits();
+        assertThat(search("дрель"), contains(item.getId()));
+        assertThat(searchHits() - hitsBefore, equalTo(1.0));
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemInDto("Перфоратор", "", null, null));
+
+        assertThat(search("дрель"), empty());
+        assertThat(search("перфоратор"), contains(item.getId()));
+    }
+
+    @Test
+    void shouldUpdateOwnerBookingsAndCalendarAfterApproval() {
+        LocalDateTime start = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS);
+        assertThat(itemService.getItemById(owner.getId(), item.getId()).getNextBooking(), nullValue());
+        assertThat(itemAvailabilityService.getAvailability(item.getId(), start, start.plusDays(1)).getBusy(), empty());
+        BookingDto booking = bookingService.createBooking(
+                booker.getId(), new BookingInDto(item.getId(), start.plusHours(1), start.plusHours(3))
+        );
+
+        bookingService.setBookingApproveStatus(owner.getId(), booking.getId(), true);
+
+        assertThat(itemService.getItemById(owner.getId(), item.getId()).getNextBooking().getId(),
+                equalTo(booking.getId()));
+        assertThat(itemAvailabilityService.getAvailability(item.getId(), start, start.plusDays(1)).getBusy(),
+                contains(new TimeRangeDto(start.plusHours(1), start.plusHours(3))));
+    }
+
+    private List<Long> search(String text) {
+        return itemService.searchItemByName(booker.getId(), text, 0, 10).stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private double itemHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ItemDetailsCacheServiceImpl.CACHE_NAME)
+                .tag("level", "item")
+                .tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    private double searchHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ItemSearchCacheServiceImpl.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    private User makeUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@caches.test");
+        return userRepository.save(user);
+    }
+}
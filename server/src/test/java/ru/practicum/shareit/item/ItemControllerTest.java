@@ -9,11 +9,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.error.AccessViolationException;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentInDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemInDto;
+import ru.practicum.shareit.item.dto.TimeRangeDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -27,7 +31,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
 
-@WebMvcTest(ItemController.class)
+@WebMvcTest({ItemController.class, ItemListController.class})
 @AutoConfigureMockMvc
 class ItemControllerTest {
 
@@ -36,6 +40,8 @@ class ItemControllerTest {
 
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private ItemAvailabilityService itemAvailabilityService;
 
     private final CommentDto commentDto = new CommentDto(
             1L,
@@ -53,6 +59,7 @@ class ItemControllerTest {
                     null,
                     null,
                     List.of(commentDto),
+                    null,
                     null
             ),
             new ItemDto(
@@ -63,6 +70,7 @@ class ItemControllerTest {
                     null,
                     null,
                     Collections.emptyList(),
+                    null,
                     null
             )
     );
@@ -98,6 +106,57 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.requestId", is(itemDtoList.get(0).getRequestId()), Long.class));
     }
 
+    @Test
+    void shouldGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemAvailabilityService.getAvailability(1L, from, to))
+                .thenReturn(new ItemAvailabilityDto(
+                        1L, from, to,
+                        List.of(new TimeRangeDto(from, from.plusHours(10)), new TimeRangeDto(from.plusHours(12), to)),
+                        List.of(new TimeRangeDto(from.plusHours(10), from.plusHours(12)))
+                ));
+
+        mockMvc.perform(get("/items/1/availability")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1L), Long.class))
+                .andExpect(jsonPath("$.free", hasSize(2)))
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.busy[0].start", is("2030-01-01T10:00:00")))
+                .andExpect(jsonPath("$.busy[0].end", is("2030-01-01T12:00:00")));
+    }
+
+    @Test
+    void shouldGetCommentsPageWithNextCursor() throws Exception {
+        CommentCursor cursor = new CommentCursor(LocalDateTime.of(2030, 1, 1, 0, 0), 5L);
+        when(itemService.getComments(1L, cursor, 1))
+                .thenReturn(List.of(commentDto));
+
+        mockMvc.perform(get("/items/1/comments")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("size", "1")
+                        .param("cursor", cursor.encode())
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(commentDto.getId()), Long.class))
+                .andExpect(header().string(
+                        BookingController.NEXT_CURSOR_HEADER, CommentCursor.after(commentDto).encode()
+                ));
+
+        mockMvc.perform(get("/items/1/comments")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "???")
+                )
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldCreateComment() throws Exception {
         when(itemService.createCommentForItem(anyLong(), anyLong(), any()))
@@ -0,0 +1,112 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@SpringBootTest(properties = "shareit.items.details.cache.max-items=1000")
+class ItemDetailsCacheServiceImplTest {
+
+    @Autowired
+    private ItemDetailsCacheService itemDetailsCacheService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private final AtomicInteger itemLoads = new AtomicInteger();
+    private final AtomicInteger bookingLoads = new AtomicInteger();
+
+    @Test
+    void shouldServeRepeatedReadsFromCacheUntilItemChanged() {
+        double hitsBefore = itemHits();
+
+        getItem(101L, 0);
+        getItem(101L, 0).toItemDto().setName("изменено в ответе");
+        var itemDto = getItem(101L, 0).toItemDto();
+        itemDetailsCacheService.itemChanged(101L);
+        getItem(101L, 0);
+
+        assertThat(itemDto.getName(), equalTo("thing"));
+        assertThat(itemLoads.get(), equalTo(2));
+        assertThat(itemHits() - hitsBefore, equalTo(2.0));
+    }
+
+    @Test
+    void shouldReloadBookingsWhenChangedOrNextBookingStarted() {
+        getBookings(201L, LocalDateTime.now().plusDays(1));
+        getBookings(201L, LocalDateTime.now().plusDays(1));
+        itemDetailsCacheService.bookingsChanged(201L);
+        getBookings(201L, LocalDateTime.now().plusDays(1));
+        assertThat(bookingLoads.get(), equalTo(2));
+
+        getBookings(202L, LocalDateTime.now().minusSeconds(1));
+        var bookings = getBookings(202L, LocalDateTime.now().minusSeconds(1));
+        assertThat(bookingLoads.get(), equalTo(4));
+        assertThat(bookings.getLastBooking(), nullValue());
+        assertThat(bookings.getNextBooking().getBookerId(), equalTo(7L));
+    }
+
+    private double itemHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ItemDetailsCacheServiceImpl.CACHE_NAME)
+                .tag("level", "item")
+                .tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    private ItemSnapshot getItem(Long itemId, int commentCount) {
+        return itemDetailsCacheService.getItem(itemId, () -> {
+            itemLoads.incrementAndGet();
+            Item item = makeItem(itemId);
+            List<Comment> comments = new ArrayList<>();
+            for (int i = 0; i < commentCount; i++) {
+                Comment comment = new Comment();
+                comment.setId((long) i);
+                comment.setText("comment");
+                comment.setAuthor(item.getOwner());
+                comment.setItem(item);
+                comment.setCreated(LocalDateTime.now());
+                comments.add(comment);
+            }
+            return ItemSnapshot.of(item, comments);
+        });
+    }
+
+    private ItemBookingsSnapshot getBookings(Long itemId, LocalDateTime nextStart) {
+        return itemDetailsCacheService.getBookings(itemId, () -> {
+            bookingLoads.incrementAndGet();
+            User booker = new User();
+            booker.setId(7L);
+            Booking next = new Booking();
+            next.setId(1L);
+            next.setBooker(booker);
+            next.setStartDate(nextStart);
+            return new ItemBookingsSnapshot(null, next);
+        });
+    }
+
+    private static Item makeItem(Long itemId) {
+        User owner = new User();
+        owner.setId(1L);
+        owner.setName("The Owner");
+        Item item = new Item();
+        item.setId(itemId);
+        item.setName("thing");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return item;
+    }
+}
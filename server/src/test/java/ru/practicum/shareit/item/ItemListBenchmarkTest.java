@@ -0,0 +1,205 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+    Задержка GET /items на PostgreSQL с ответом из сущностей и с ответом, собранным одним запросом
+    (shareit.items.list.mode=JSON). У всех вещей владельца ссылки на бронирования устарели, то есть
+    запрос попадает в окно до планового переноса ссылок и читает бронирования из таблицы.
+    Запускается только с адресом базы, например:
+    mvn test -Dtest=ItemListBenchmarkTest -Dshareit.benchmark.url=jdbc:postgresql://localhost:5432/bench
+        -Dshareit.benchmark.user=root -Dshareit.benchmark.password=root
+    При первом запуске в базу добавляются данные, это занимает несколько минут.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.benchmark.url", matches = ".+")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class ItemListBenchmarkTest {
+
+    private static final String URL = "spring.datasource.url=${shareit.benchmark.url}";
+    private static final String USER = "spring.datasource.username=${shareit.benchmark.user}";
+    private static final String PASSWORD = "spring.datasource.password=${shareit.benchmark.password}";
+    private static final String DRIVER = "spring.datasource.driverClassName=org.postgresql.Driver";
+    private static final String SCHEMA =
+            "spring.sql.init.schema-locations=classpath:schema.sql,classpath:schema-postgresql.sql";
+    // перенос ссылок не должен исправить их во время замеров
+    private static final String NO_ROLL_FORWARD = "shareit.items.booking-pointers.roll-forward-delay=86400000";
+
+    private static final String OWNER_EMAIL = "items-bench-owner@shareit.test";
+    private static final String BOOKER_EMAIL = "items-bench-booker@shareit.test";
+    private static final int OWNER_ITEMS = 20;
+    private static final int OTHER_ITEMS = 200_000;
+    private static final int BOOKING_DAYS = 21;
+    private static final int COMMENTS_PER_ITEM = 5;
+    private static final int OWNER_COMMENTS_PER_ITEM = 100;
+    private static final int WARMUP = 50;
+    private static final int RUNS = 500;
+
+    private static final Map<String, long[]> RESULTS = new ConcurrentHashMap<>();
+
+    abstract static class Mode {
+        @Autowired
+        private MockMvc mockMvc;
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        // время каждого запроса в наносекундах, по возрастанию
+        long[] measure() throws Exception {
+            Long ownerId = fill();
+            long[] times = new long[RUNS];
+            for (int run = -WARMUP; run < RUNS; run++) {
+                long started = System.nanoTime();
+                fetch(ownerId);
+                if (run >= 0) {
+                    times[run] = System.nanoTime() - started;
+                }
+            }
+            Arrays.sort(times);
+            return times;
+        }
+
+        // ответ пишется потоком после выхода из контроллера
+        String fetch(Long ownerId) throws Exception {
+            MvcResult result = mockMvc.perform(get("/items")
+                            .header("X-Sharer-User-Id", ownerId)
+                            .param("size", String.valueOf(OWNER_ITEMS))
+                    )
+                    .andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(asyncDispatch(result)).andReturn();
+            }
+            assertThat(result.getResponse().getStatus(), equalTo(200));
+            return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+
+        Long fill() {
+            jdbcTemplate.update("insert into users (name, email) values ('bench owner', ?), ('bench booker', ?) " +
+                                "on conflict do nothing", OWNER_EMAIL, BOOKER_EMAIL);
+            Long ownerId = jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, OWNER_EMAIL);
+            Long bookerId = jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, BOOKER_EMAIL);
+            Integer items = jdbcTemplate.queryForObject(
+                    "select count(*) from items where owner_id = ?", Integer.class, ownerId
+            );
+            if (items == null || items == 0) {
+                jdbcTemplate.update("insert into items (name, description, is_available, owner_id) " +
+                                    "select 'bench item ' || n, 'bench', true, ? from generate_series(1, ?) n",
+                        ownerId, OWNER_ITEMS);
+                jdbcTemplate.update("insert into items (name, description, is_available, owner_id) " +
+                                    "select 'other item ' || n, 'bench', true, ? from generate_series(1, ?) n",
+                        bookerId, OTHER_ITEMS);
+                // подтвержденные бронирования через сутки, от двух недель назад до недели вперед
+                jdbcTemplate.update("insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                                    "select now() - interval '14 days' + n * interval '1 day', " +
+                                    "now() - interval '14 days' + n * interval '1 day' + interval '12 hours', " +
+                                    "i.id, ?, 'APPROVED' " +
+                                    "from items i cross join generate_series(0, ?) n where i.owner_id in (?, ?)",
+                        bookerId, BOOKING_DAYS - 1, ownerId, bookerId);
+                jdbcTemplate.update("insert into comments (text, item_id, author_id, create_date) " +
+                                    "select 'comment ' || n, i.id, ?, now() - n * interval '1 minute' " +
+                                    "from items i cross join generate_series(1, " +
+                                    "case when i.owner_id = ? then ? else ? end) n " +
+                                    "where i.owner_id in (?, ?)",
+                        bookerId, ownerId, OWNER_COMMENTS_PER_ITEM, COMMENTS_PER_ITEM, ownerId, bookerId);
+                jdbcTemplate.update("update items i set comment_count = " +
+                                    "(select count(*) from comments c where c.item_id = i.id) " +
+                                    "where i.owner_id in (?, ?)", ownerId, bookerId);
+                jdbcTemplate.execute("analyze");
+            }
+            // следующим остается уже начавшееся бронирование, как до планового переноса ссылок
+            jdbcTemplate.update("update items i set last_booking_id = null, next_booking_id = " +
+                                "(select max(b.id) from bookings b where b.item_id = i.id and b.start_date < now()) " +
+                                "where i.owner_id = ?", ownerId);
+            return ownerId;
+        }
+    }
+
+    @Nested
+    @Order(1)
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(properties = {
+            URL, USER, PASSWORD, DRIVER, SCHEMA, NO_ROLL_FORWARD
+    })
+    @AutoConfigureMockMvc
+    class Entities extends Mode {
+        @Test
+        void shouldMeasureEntityPage() throws Exception {
+            RESULTS.put("entities", measure());
+        }
+    }
+
+    @Nested
+    @Order(2)
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(properties = {
+            URL, USER, PASSWORD, DRIVER, SCHEMA, NO_ROLL_FORWARD, "shareit.items.list.mode=JSON"
+    })
+    @AutoConfigureMockMvc
+    class Json extends Mode {
+        @Autowired
+        private ItemService itemService;
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Test
+        void shouldBuildSamePageAsEntities() throws Exception {
+            Long ownerId = fill();
+
+            JsonNode expected = objectMapper.readTree(
+                    objectMapper.writeValueAsBytes(itemService.getAllItems(ownerId, 0, OWNER_ITEMS))
+            );
+
+            assertThat(ItemPageServiceImplTest.normalized(objectMapper.readTree(fetch(ownerId))),
+                    equalTo(ItemPageServiceImplTest.normalized(expected)));
+        }
+
+        @Test
+        void shouldMeasureSingleStatementPage() throws Exception {
+            long[] json = measure();
+            log.info("GET /items одним запросом, {} вещей, {} запросов: p50 {} мс, p99 {} мс, {} запросов в секунду",
+                    OWNER_ITEMS, RUNS, millis(percentile(json, 50)), millis(percentile(json, 99)), throughput(json));
+            long[] entities = RESULTS.get("entities");
+            if (entities == null) return;
+            log.info("GET /items через сущности: {} запросов в секунду", throughput(entities));
+            assertThat(percentile(json, 50), lessThan(percentile(entities, 50)));
+        }
+    }
+
+    // запросы идут один за другим, поэтому пропускная способность - число запросов на суммарное время
+    private static String throughput(long[] times) {
+        return String.format("%.0f", times.length / (Arrays.stream(times).sum() / 1e9));
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
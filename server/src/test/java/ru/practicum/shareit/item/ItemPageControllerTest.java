@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.error.EntryNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = {ItemPageController.class, ItemListController.class},
+        properties = "shareit.items.list.mode=JSON")
+@AutoConfigureMockMvc
+class ItemPageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ItemService itemService;
+    @MockBean
+    private ItemPageService itemPageService;
+
+    @Test
+    void shouldStreamUserItemsBuiltByDatabase() throws Exception {
+        StreamingResponseBody body = out -> out.write("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8));
+        when(itemPageService.getAllItems(anyLong(), anyInt(), anyInt())).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "5")
+                        .param("size", "10")
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id", is(1)));
+        verify(itemPageService).getAllItems(1L, 5, 10);
+        verify(itemService, never()).getAllItems(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldGetNotFoundWhenUserNotFound() throws Exception {
+        when(itemPageService.getAllItems(anyLong(), anyInt(), anyInt()))
+                .thenThrow(new EntryNotFoundException("пользователь не найден"));
+
+        mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                )
+                .andExpect(status().isNotFound());
+    }
+}
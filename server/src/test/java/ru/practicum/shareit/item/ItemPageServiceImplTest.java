@@ -0,0 +1,154 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.PostgresTest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.error.EntryNotFoundException;
+import ru.practicum.shareit.item.dto.CommentInDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+    Ответ, собранный PostgreSQL, сравнивается с ответом ItemService.getAllItems на тех же данных.
+    Данные сохраняются сразу, чтобы счетчик комментариев читался из базы, и удаляются после каждого теста.
+ */
+@SpringBootTest(properties = "shareit.items.list.mode=JSON")
+class ItemPageServiceImplTest extends PostgresTest {
+
+    @Autowired
+    private ItemPageService itemPageService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        owner = makeUser("The Owner");
+        booker = makeUser("John Doe");
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    void shouldBuildSamePageAsEntities() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        // ссылки устарели: следующее бронирование уже началось
+        Item stale = makeItem();
+        Booking past = makeBooking(stale, now.minusDays(3));
+        Booking started = makeBooking(stale, now.minusHours(1));
+        makeBooking(stale, now.plusDays(1));
+        stale.setLastBooking(past);
+        stale.setNextBooking(started);
+        itemRepository.save(stale);
+        for (int i = 0; i < ItemServiceImpl.EMBEDDED_COMMENTS + 2; i++) {
+            itemService.createCommentForItem(booker.getId(), stale.getId(), new CommentInDto("comment " + i));
+        }
+        // ссылки актуальны
+        Item fresh = makeItem();
+        fresh.setLastBooking(makeBooking(fresh, now.minusDays(2)));
+        fresh.setNextBooking(makeBooking(fresh, now.plusDays(2)));
+        itemRepository.save(fresh);
+        itemService.createCommentForItem(booker.getId(), fresh.getId(), new CommentInDto("только один"));
+        makeItem();
+
+        JsonNode expected = readEntities(0, 20);
+        JsonNode actual = readPage(0, 20);
+
+        assertThat(actual.size(), equalTo(3));
+        assertThat(normalized(actual), equalTo(normalized(expected)));
+        assertThat(actual.get(0).get("comments").size(), equalTo(ItemServiceImpl.EMBEDDED_COMMENTS));
+        assertThat(actual.get(0).get("lastBooking").get("id").asLong(), equalTo(started.getId()));
+        assertThat(normalized(readPage(2, 2)),
+                equalTo(normalized(readEntities(2, 2))));
+    }
+
+    @Test
+    void shouldWriteEmptyArrayWhenOwnerHasNoItems() throws Exception {
+        assertThat(readPage(0, 20).isEmpty(), equalTo(true));
+    }
+
+    @Test
+    void shouldGetErrorWhenUserNotFound() {
+        assertThrows(EntryNotFoundException.class, () -> itemPageService.getAllItems(-1L, 0, 20));
+    }
+
+    private JsonNode readPage(int from, int size) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        itemPageService.getAllItems(owner.getId(), from, size).writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    // через текст, чтобы числа разобрались в те же типы узлов, что и в ответе базы
+    private JsonNode readEntities(int from, int size) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(itemService.getAllItems(owner.getId(), from, size)));
+    }
+
+    // база и Jackson по-разному записывают доли секунды, поэтому даты комментариев сравниваются как значения
+    static JsonNode normalized(JsonNode page) {
+        JsonNode copy = page.deepCopy();
+        for (JsonNode item : copy) {
+            for (JsonNode comment : item.get("comments")) {
+                ((ObjectNode) comment).put("created",
+                        LocalDateTime.parse(comment.get("created").asText()).toString());
+            }
+        }
+        return copy;
+    }
+
+    private User makeUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@page.test");
+        return userRepository.save(user);
+    }
+
+    private Item makeItem() {
+        Item item = new Item();
+        item.setName("thing");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return itemRepository.save(item);
+    }
+
+    private Booking makeBooking(Item item, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusHours(12));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+        return bookingRepository.save(booking);
+    }
+}
@@ -7,15 +7,25 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -24,6 +34,8 @@ class ItemRepositoryTest {
     private TestEntityManager em;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
     private List<ItemRequest> itemRequests;
     private List<Item> items;
 
@@ -61,7 +73,61 @@ class ItemRepositoryTest {
         var targetItems = result.toList();
         var sourceItems = List.of(items.get(0), items.get(1)); // available only 2 first items
 
-        ItemServiceImplTest.checkResult(ItemMapper.toItemDto(targetItems), ItemMapper.toItemDto(sourceItems));
+        ItemServiceImplTest.checkResult(targetItems, ItemMapper.toItemDto(sourceItems));
+    }
+
+    @Test
+    void shouldSearchAvailableItemsPageByPage() {
+
+        var firstPage = itemRepository.searchAvailable("item", PageRequest.of(0, 1));
+        var lastPage = itemRepository.searchAvailable("item", PageRequest.of(1, 1));
+
+        ItemServiceImplTest.checkResult(firstPage.toList(), ItemMapper.toItemDto(List.of(items.get(0))));
+        assertThat(firstPage.hasNext(), is(true));
+        ItemServiceImplTest.checkResult(lastPage.toList(), ItemMapper.toItemDto(List.of(items.get(1))));
+        assertThat(lastPage.hasNext(), is(false));
+    }
+
+    @Test
+    void shouldBuildPrefixQueryFromSearchText() {
+        assertThat(ItemSearchRepositoryImpl.toPrefixQuery("Дрель, ударная!"), equalTo("дрель:* & ударная:*"));
+        assertThat(ItemSearchRepositoryImpl.toPrefixQuery(" & | ! "), equalTo(""));
+    }
+
+    @Test
+    void shouldSearchFragmentsAndTyposBySimilarity() {
+        Item drill = makeItem("Дрель ударная", "100% мощность", items.get(0).getOwner(), null);
+        em.flush();
+
+        ItemServiceImplTest.checkResult(itemRepository.searchAvailable("рел", PageRequest.of(0, 10)).toList(),
+                ItemMapper.toItemDto(List.of(drill)));
+        ItemServiceImplTest.checkResult(itemRepository.searchAvailable("дрелб", PageRequest.of(0, 10)).toList(),
+                ItemMapper.toItemDto(List.of(drill)));
+        ItemServiceImplTest.checkResult(itemRepository.searchAvailable("0%", PageRequest.of(0, 10)).toList(),
+                ItemMapper.toItemDto(List.of(drill)));
+        assertThat(itemRepository.searchAvailable("0_", PageRequest.of(0, 10)).toList(), empty());
+    }
+
+    @Test
+    void shouldSearchSubstringsIgnoringCaseInLikeMode() {
+        Item drill = makeItem("Дрель ударная", "100% мощность", items.get(0).getOwner(), null);
+        em.flush();
+        var repository = new ItemSearchRepositoryImpl(em.getEntityManager(), ItemSearchMode.LIKE);
+
+        ItemServiceImplTest.checkResult(repository.searchAvailable("ДРЕЛ", PageRequest.of(0, 10)).toList(),
+                ItemMapper.toItemDto(List.of(drill)));
+        ItemServiceImplTest.checkResult(repository.searchAvailable("0%", PageRequest.of(0, 10)).toList(),
+                ItemMapper.toItemDto(List.of(drill)));
+        assertThat(repository.searchAvailable("дрелб", PageRequest.of(0, 10)).toList(), empty());
+        assertThat(repository.searchAvailable("0_", PageRequest.of(0, 10)).toList(), empty());
+    }
+
+    // значения из документации pg_trgm
+    @Test
+    void shouldCalculateWordSimilarityLikePgTrgm() {
+        assertThat(TrigramSimilarity.wordSimilarity("word", "two words"), closeTo(0.8, 1e-6));
+        assertThat(TrigramSimilarity.wordSimilarity("word", "Word"), closeTo(1.0, 1e-6));
+        assertThat(TrigramSimilarity.wordSimilarity("word", "cord"), lessThan(0.6));
     }
 
     @Test
@@ -70,7 +136,76 @@ class ItemRepositoryTest {
         var targetItems = itemRepository.findItemsFor(itemRequests);
         var sourceItems = List.of(items.get(0), items.get(1)); // only 2 first items has requests
 
-        ItemServiceImplTest.checkResult(ItemMapper.toItemDto(targetItems), ItemMapper.toItemDto(sourceItems));
+        ItemServiceImplTest.checkResult(targetItems, ItemMapper.toItemDto(sourceItems));
+    }
+
+    @Test
+    void shouldFindItemsForRequest() {
+
+        var targetItems = itemRepository.findAllByRequest_Id(itemRequests.get(0).getId());
+
+        ItemServiceImplTest.checkResult(targetItems, ItemMapper.toItemDto(List.of(items.get(0), items.get(1))));
+        assertThat(itemRepository.findAllByRequest_Id(itemRequests.get(1).getId()), empty());
+    }
+
+    // у комментариев с одинаковым временем порядок задает id
+    @Test
+    void shouldPageCommentsFromNewestByCursor() {
+        User author = makeUser("Author", "author@gmail.com");
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            comments.add(makeComment(items.get(0), author, created.minusMinutes(i / 2)));
+        }
+        makeComment(items.get(1), author, created);
+        em.flush();
+        em.clear();
+
+        var firstPage = commentRepository.findLatestFor(items.get(0).getId(), PageRequest.of(0, 3));
+        Comment last = firstPage.get(firstPage.size() - 1);
+        var secondPage = commentRepository.findForItemBefore(
+                items.get(0).getId(), last.getCreated(), last.getId(), PageRequest.of(0, 3)
+        );
+
+        assertThat(ids(firstPage), contains(comments.get(1).getId(), comments.get(0).getId(), comments.get(3).getId()));
+        assertThat(ids(secondPage), contains(comments.get(2).getId(), comments.get(4).getId()));
+        assertThat(commentRepository.findLatestIdsFor(List.of(items.get(0).getId(), items.get(1).getId()), 2).size(),
+                equalTo(3));
+    }
+
+    @Test
+    void shouldCountCommentsWithoutChangingItemVersion() {
+        User author = makeUser("Author", "author@gmail.com");
+        Item item = items.get(0);
+        for (int i = 0; i < 3; i++) {
+            makeComment(item, author, LocalDateTime.now());
+            itemRepository.incrementCommentCount(item.getId());
+        }
+        makeComment(item, items.get(0).getOwner(), LocalDateTime.now());
+        itemRepository.incrementCommentCount(item.getId());
+        Long version = item.getVersion();
+        em.clear();
+
+        itemRepository.decrementCommentCountsForAuthor(author.getId());
+        em.clear();
+
+        Item counted = itemRepository.findById(item.getId()).orElseThrow();
+        assertThat(counted.getCommentCount(), equalTo(1L));
+        assertThat(counted.getVersion(), equalTo(version));
+    }
+
+    private static List<Long> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getId).collect(Collectors.toList());
+    }
+
+    private Comment makeComment(Item item, User author, LocalDateTime created) {
+        Comment comment = new Comment();
+        comment.setText("comment");
+        comment.setItem(item);
+        comment.setAuthor(author);
+        comment.setCreated(created);
+        em.persist(comment);
+        return comment;
     }
 
     private User makeUser(String name, String email) {
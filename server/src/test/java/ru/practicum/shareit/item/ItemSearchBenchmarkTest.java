@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/*
+    Сравнение способов поиска вещей на PostgreSQL: прежнего поиска подстроки, полнотекстового
+    и по триграммам (фрагменты из 3-5 символов, цель - p95 меньше 10 мс).
+    Запускается только с адресом базы, например:
+    mvn test -Dtest=ItemSearchBenchmarkTest -Dshareit.benchmark.url=jdbc:postgresql://localhost:5432/bench
+        -Dshareit.benchmark.user=root -Dshareit.benchmark.password=root
+    При первом запуске в базу добавляется ITEMS вещей, это занимает несколько минут.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.benchmark.url", matches = ".+")
+class ItemSearchBenchmarkTest {
+
+    private static final int ITEMS = 1_000_000;
+    private static final int WARMUP = 50;
+    private static final int RUNS = 500;
+    private static final int PAGE_SIZE = 20;
+    private static final int ARTICLES = ITEMS / 10;
+    private static final List<String> WORDS = List.of(
+            "дрель", "перфоратор", "отвертка", "лестница", "палатка", "велосипед", "самокат", "пила",
+            "шуруповерт", "болгарка", "гитара", "проектор", "колонка", "фотоаппарат", "штатив", "рюкзак",
+            "удочка", "лодка", "мангал", "спальник", "drill", "ladder", "tent", "bike", "saw", "camera"
+    );
+
+    // прежний запрос searchAvailable в SQL, который генерировал Hibernate
+    private static final String LIKE_QUERY =
+            "select i.id, i.name, i.description, i.is_available, i.request_id from items i " +
+            "where i.is_available = true and " +
+            "(upper(i.name) like upper('%' || ? || '%') or upper(i.description) like upper('%' || ? || '%')) " +
+            "limit " + (PAGE_SIZE + 1);
+    private static final String FULL_TEXT_QUERY =
+            ItemSearchRepositoryImpl.FULL_TEXT_QUERY.replace("?1", "?") + " limit " + (PAGE_SIZE + 1);
+    // параметры ?2, ?1, ?2, ?1 по порядку появления в запросе
+    private static final String TRIGRAM_QUERY =
+            ItemSearchRepositoryImpl.TRIGRAM_QUERY.replaceAll("\\?[12]", "?") + " limit " + (PAGE_SIZE + 1);
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("shareit.benchmark.url"),
+                System.getProperty("shareit.benchmark.user"),
+                System.getProperty("shareit.benchmark.password")
+        );
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-postgresql.sql"));
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-postgresql-FULL_TEXT.sql"));
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-postgresql-TRIGRAM.sql"));
+        fillItems();
+    }
+
+    @Test
+    void shouldSearchFasterWithFullTextIndex() throws SQLException {
+        long[] like = measure(LIKE_QUERY, random -> {
+            String article = article(random);
+            return new String[]{article, article};
+        });
+        long[] fullText = measure(FULL_TEXT_QUERY,
+                random -> new String[]{ItemSearchRepositoryImpl.toPrefixQuery(article(random))});
+
+        log.info("Поиск по {} вещам, {} запросов: LIKE p50 {} мс, p99 {} мс; полнотекстовый p50 {} мс, p99 {} мс",
+                ITEMS, RUNS, millis(percentile(like, 50)), millis(percentile(like, 99)),
+                millis(percentile(fullText, 50)), millis(percentile(fullText, 99)));
+        assertThat(percentile(like, 50), greaterThan(percentile(fullText, 50)));
+    }
+
+    @Test
+    void shouldMeasureTrigramSearchForShortFragments() throws SQLException {
+        long[] trigram = measure(TRIGRAM_QUERY, random -> {
+            String word = WORDS.get(random.nextInt(WORDS.size()));
+            int length = Math.min(word.length(), 3 + random.nextInt(3));
+            int start = random.nextInt(word.length() - length + 1);
+            String fragment = word.substring(start, start + length);
+            String pattern = ItemSearchRepositoryImpl.toContainsPattern(fragment);
+            return new String[]{pattern, fragment, pattern, fragment};
+        });
+
+        log.info("Поиск фрагментов из 3-5 символов по триграммам среди {} вещей, {} запросов: " +
+                 "p50 {} мс, p95 {} мс, p99 {} мс", ITEMS, RUNS, millis(percentile(trigram, 50)),
+                millis(percentile(trigram, 95)), millis(percentile(trigram, 99)));
+    }
+
+    private static void fillItems() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet count = statement.executeQuery("select count(*) from items");
+            count.next();
+            long missing = ITEMS - count.getLong(1);
+            if (missing <= 0) return;
+            statement.executeUpdate("insert into users (name, email) values ('bench', 'bench@shareit.test') " +
+                                    "on conflict do nothing");
+            String randomWord = "(array['" + String.join("','", WORDS) + "'])" +
+                                "[1 + floor(random() * " + WORDS.size() + ")::int]";
+            // артикул встречается примерно у десяти вещей: поиск по нему избирателен, как обычный поиск по названию
+            statement.executeUpdate(
+                    "insert into items (name, description, is_available, owner_id) " +
+                    "select " + randomWord + " || ' ' || " + randomWord + ", " +
+                    randomWord + " || ' ' || " + randomWord + " || ' артикул m' || (n % " + ARTICLES + "), " +
+                    "n % 10 <> 0, (select id from users where email = 'bench@shareit.test' limit 1) " +
+                    "from generate_series(1, " + missing + ") n"
+            );
+            statement.execute("analyze items");
+        }
+    }
+
+    private static String article(Random random) {
+        return "m" + random.nextInt(ARTICLES);
+    }
+
+    // время каждого запуска в наносекундах, по возрастанию
+    private static long[] measure(String sql, Function<Random, String[]> parameters) throws SQLException {
+        Random random = new Random(42);
+        long[] times = new long[RUNS];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int run = -WARMUP; run < RUNS; run++) {
+                String[] values = parameters.apply(random);
+                for (int i = 0; i < values.length; i++) {
+                    query.setString(i + 1, values[i]);
+                }
+                long started = System.nanoTime();
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getLong(1);
+                    }
+                }
+                if (run >= 0) {
+                    times[run] = System.nanoTime() - started;
+                }
+            }
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
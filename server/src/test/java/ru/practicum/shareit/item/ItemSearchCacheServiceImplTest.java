@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@SpringBootTest(properties = "shareit.items.search.cache.max-size=1000")
+class ItemSearchCacheServiceImplTest {
+
+    @Autowired
+    private ItemSearchCacheService itemSearchCacheService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    @Test
+    void shouldServeRepeatedSearchFromCache() {
+        double hitsBefore = hits();
+
+        search("Дрель", 0, 10);
+        search("дрель", 0, 10);
+        search("дрель", 5, 10);
+
+        assertThat(loads.get("Дрель"), equalTo(1));
+        assertThat(hits() - hitsBefore, equalTo(2.0));
+        assertThat(meterRegistry.get("shareit.items.search.cache.hit.ratio").gauge().value(), greaterThan(0.0));
+    }
+
+    @Test
+    void shouldInvalidateOnlyQueriesMatchingChangedItem() {
+        search("лестница", 0, 10);
+        search("дрелб", 0, 10);
+
+        itemSearchCacheService.itemChanged(null, item("Дрель ударная", null, true));
+        search("лестница", 0, 10);
+        search("дрелб", 0, 10);
+
+        assertThat(loads.get("лестница"), equalTo(1));
+        assertThat(loads.get("дрелб"), equalTo(2));
+    }
+
+    @Test
+    void shouldIgnoreChangesOutsideSearchFields() {
+        search("палатка", 0, 10);
+        ItemDto tent = item("Палатка", "двухместная", true);
+
+        itemSearchCacheService.itemChanged(tent, item("Палатка", "двухместная", true));
+        search("палатка", 0, 10);
+        itemSearchCacheService.itemChanged(tent, item("Палатка", "двухместная", false));
+        search("палатка", 0, 10);
+
+        assertThat(loads.get("палатка"), equalTo(2));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ItemSearchCacheServiceImpl.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter().count();
+    }
+
+    private void search(String text, int from, int size) {
+        itemSearchCacheService.search(text, from, size, () -> {
+            loads.merge(text, 1, Integer::sum);
+            return List.of();
+        });
+    }
+
+    private static ItemDto item(String name, String description, boolean available) {
+        return new ItemDto(1L, name, description, available, null);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.PostgresTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+
+/*
+    Запросы режимов TRIGRAM и FULL_TEXT на PostgreSQL. Скрипты их индексов выполняются
+    в транзакции теста и откатываются вместе с ней, остальные тесты на PostgreSQL их не видят.
+    Вещи, где слово встречается чаще или в названии, идут в полнотекстовом поиске выше.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql({"classpath:schema-postgresql-TRIGRAM.sql", "classpath:schema-postgresql-FULL_TEXT.sql"})
+class ItemSearchRepositoryImplTest extends PostgresTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("owner@gmail.com");
+        em.persist(owner);
+        makeItem("Дрель", "Аккумуляторная, два аккумулятора", owner, true);
+        makeItem("Шуруповерт", "Можно сверлить как дрелью", owner, true);
+        makeItem("Дрель ударная", "Сетевая", owner, false);
+        makeItem("Перфоратор", "Аккумуляторный перфоратор", owner, true);
+        em.flush();
+    }
+
+    @Test
+    void shouldFindSubstringsFirstAndThenTyposInTrigramMode() {
+        ItemSearchRepository repository = new ItemSearchRepositoryImpl(em.getEntityManager(), ItemSearchMode.TRIGRAM);
+
+        assertThat(names(repository, "ДРЕЛ"), contains("Дрель", "Шуруповерт"));
+        assertThat(names(repository, "перфоратр"), contains("Перфоратор"));
+        assertThat(names(repository, "велосипед"), empty());
+    }
+
+    @Test
+    void shouldFindWordPrefixesRankedByNameInFullTextMode() {
+        ItemSearchRepository repository = new ItemSearchRepositoryImpl(em.getEntityManager(), ItemSearchMode.FULL_TEXT);
+
+        assertThat(names(repository, "аккумулятор*"), contains("Дрель", "Перфоратор"));
+        assertThat(names(repository, "дрел"), contains("Дрель", "Шуруповерт"));
+        assertThat(names(repository, "дрель аккум"), contains("Дрель"));
+        assertThat(names(repository, "!&|"), empty());
+    }
+
+    @Test
+    void shouldUseGinIndexes() {
+        em.getEntityManager().createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        assertThat(explain(ItemSearchRepositoryImpl.TRIGRAM_QUERY
+                        .replace("?1", "'дрел'").replace("?2", "'%дрел%'")),
+                containsString("items_available_trgm_idx"));
+        assertThat(explain(ItemSearchRepositoryImpl.FULL_TEXT_QUERY.replace("?1", "'дрел:*'")),
+                containsString("items_available_search_idx"));
+    }
+
+    private static List<String> names(ItemSearchRepository repository, String text) {
+        return repository.searchAvailable(text, PAGE).stream()
+                .map(ItemDto::getName)
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private String explain(String sql) {
+        List<String> plan = em.getEntityManager().createNativeQuery("EXPLAIN " + sql).getResultList();
+        return String.join("\n", plan).toLowerCase(Locale.ROOT);
+    }
+
+    private void makeItem(String name, String description, User owner, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        em.persist(item);
+    }
+}
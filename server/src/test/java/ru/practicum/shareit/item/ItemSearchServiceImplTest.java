@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {"shareit.items.search.index.enabled=true", "shareit.items.search.mode=LIKE"})
+class ItemSearchServiceImplTest {
+
+    @MockBean
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemSearchService itemSearchService;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findAvailableAfter(anyLong(), any())).thenReturn(List.of());
+        when(itemRepository.findAvailableAfter(eq(0L), any())).thenReturn(List.of(
+                item(1L, "Аккумуляторная дрель", "легкая"),
+                item(2L, "Шуруповерт", "почти дрель, только меньше"),
+                item(3L, "Дрель ударная", null),
+                item(4L, "Дрельщик", "игрушка"),
+                item(5L, "Пила", "ручная")
+        ));
+        assertThat(itemSearchService.rebuild(), equalTo(5));
+    }
+
+    @Test
+    void shouldRankWholeWordsInNameFirst() {
+        assertThat(searchIds("дрель", 0, 10), contains(1L, 3L, 4L, 2L));
+        assertThat(searchIds("ДРЕЛЬ УД", 0, 10), contains(3L));
+        assertThat(searchIds("xyz", 0, 10), empty());
+    }
+
+    @Test
+    void shouldReturnRequestedPage() {
+        assertThat(searchIds("дрель", 2, 2), contains(4L, 2L));
+        assertThat(searchIds("дрель", 4, 2), empty());
+    }
+
+    @Test
+    void shouldApplyItemChanges() {
+        itemSearchService.itemSaved(item(6L, "Дрель-миксер", null));
+        itemSearchService.itemSaved(item(5L, "Пила по дереву", "не дрель"));
+        ItemDto unavailable = item(1L, "Аккумуляторная дрель", "легкая");
+        unavailable.setAvailable(false);
+        itemSearchService.itemSaved(unavailable);
+        itemSearchService.itemDeleted(3L);
+
+        assertThat(searchIds("дрель", 0, 10), contains(6L, 4L, 2L, 5L));
+        assertThat(searchIds("по дер", 0, 10), contains(5L));
+    }
+
+    @Test
+    void shouldLeaveShortQueriesToDatabase() {
+        assertThat(itemSearchService.search("др", 0, 10), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldLeaveSearchToDatabaseInOtherModes() {
+        var trigramSearch = new ItemSearchServiceImpl(itemRepository, true, ItemSearchMode.TRIGRAM);
+
+        assertThat(trigramSearch.rebuild(), equalTo(0));
+        assertThat(trigramSearch.search("дрель", 0, 10), equalTo(Optional.empty()));
+    }
+
+    private List<Long> searchIds(String text, int from, int size) {
+        return itemSearchService.search(text, from, size).orElseThrow().stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static ItemDto item(Long id, String name, String description) {
+        return new ItemDto(id, name, description, true, null);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,7 +28,7 @@ import static org.hamcrest.Matchers.*;
 
 
 @Transactional
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class ItemServiceImplIntegrationTest {
 
     @Autowired
@@ -61,6 +63,8 @@ class ItemServiceImplIntegrationTest {
         Booking nextBooking = makeBooking(
                 LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), sourceItems.get(0), users.get(0)
         );
+        sourceItems.get(0).setLastBooking(lastBooking);
+        sourceItems.get(0).setNextBooking(nextBooking);
         em.flush();
 
         List<ItemDto> targetItemsDto = itemService.getAllItems(users.get(1).getId(), 0, 10);
@@ -81,6 +85,20 @@ class ItemServiceImplIntegrationTest {
         ItemServiceImplTest.checkResult(targetItemsDto, ItemMapper.toItemDto(List.of(sourceItems.get(0))));
     }
 
+    @Test
+    void shouldNotCountRowsWhenGetItemLists() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        itemService.searchItemByName(users.get(0).getId(), "item", 0, 1);
+        assertThat(statistics.getQueryExecutionCount(), is(1L));
+
+        statistics.clear();
+        itemService.getAllItems(users.get(1).getId(), 0, 1);
+        // вещи вместе со ссылками на бронирования, комментарии
+        assertThat(statistics.getQueryExecutionCount(), is(2L));
+    }
+
     @Test
     void shouldDeleteItem() {
 
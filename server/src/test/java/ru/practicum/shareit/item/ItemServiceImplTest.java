@@ -5,8 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
@@ -89,9 +89,11 @@ class ItemServiceImplTest {
                     return users.stream().filter(user -> user.getId().equals(userId)).findFirst();
                 });
 
-        when(bookingRepository.findNextBookingsFor(anyList(), any())).thenReturn(List.of(nextBooking));
-        when(bookingRepository.findLastBookingsFor(anyList(), any())).thenReturn(List.of(lastBooking));
-        when(commentRepository.findCommentsFor(anyList())).thenReturn(List.of(sourceComment));
+        sourceItem.setLastBooking(lastBooking);
+        sourceItem.setNextBooking(nextBooking);
+
+        when(commentRepository.findLatestIdsFor(anyList(), anyInt())).thenReturn(List.of(sourceComment.getId()));
+        when(commentRepository.findAllWithAuthorById(anyList())).thenReturn(List.of(sourceComment));
     }
 
     @Test
@@ -175,6 +177,18 @@ class ItemServiceImplTest {
         assertThat(exception.getMessage(), notNullValue());
     }
 
+    @Test
+    void shouldGetCommentsAfterCursorOrErrorWhenItemNotFound() {
+        CommentCursor cursor = new CommentCursor(sourceComment.getCreated(), sourceComment.getId());
+        when(commentRepository.findForItemBefore(
+                sourceItem.getId(), cursor.getCreated(), cursor.getId(), PageRequest.of(0, 10)
+        )).thenReturn(List.of(sourceComment));
+
+        assertThat(itemService.getComments(sourceItem.getId(), cursor, 10),
+                equalTo(List.of(CommentMapper.toCommentDto(sourceComment))));
+        assertThrows(EntryNotFoundException.class, () -> itemService.getComments(99L, null, 10));
+    }
+
     @Test
     void shouldCreateCommentForItem() {
 
@@ -240,16 +254,37 @@ class ItemServiceImplTest {
         when(itemRepository.findAllByOwner_Id(anyLong(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceItems,
-                            pageRequest,
-                            sourceItems.size()
-                    );
+                    return new SliceImpl<>(sourceItems, pageRequest, false);
+                });
+
+        var targetItemDtos = itemService.getAllItems(OWNER_USER_ID, 0, 20);
+
+        checkResult(targetItemDtos, sourceItemDtos);
+    }
+
+    @Test
+    void shouldGetAllItemsWhenNextBookingHasStarted() {
+        Booking startedBooking = makeBooking(
+                3L, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1), sourceItem, users.get(0)
+        );
+        sourceItem.setNextBooking(startedBooking);
+
+        var sourceItemDtos = ItemMapper.toItemDto(sourceItems);
+        sourceItemDtos.get(0).setComments(List.of(CommentMapper.toCommentDto(sourceComment)));
+        sourceItemDtos.get(0).setLastBooking(BookingMapper.toBookingShortDto(startedBooking));
+
+        when(itemRepository.findAllByOwner_Id(anyLong(), any()))
+                .thenAnswer(invocationOnMock -> {
+                    PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
+                    return new SliceImpl<>(sourceItems, pageRequest, false);
                 });
+        when(bookingRepository.findNextBookingsFor(anyList(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findLastBookingsFor(anyList(), any())).thenReturn(List.of(startedBooking));
 
         var targetItemDtos = itemService.getAllItems(OWNER_USER_ID, 0, 20);
 
         checkResult(targetItemDtos, sourceItemDtos);
+        verify(bookingRepository).findNextBookingsFor(eq(List.of(sourceItem.getId())), any());
     }
 
     static void checkResult(List<ItemDto> targetItems, List<ItemDto> sourceItems) {
@@ -275,7 +310,7 @@ class ItemServiceImplTest {
         sourceItemDto.setComments(List.of(CommentMapper.toCommentDto(sourceComment)));
 
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(sourceItem));
-        when(commentRepository.findByItem_Id(anyLong())).thenReturn(List.of(sourceComment));
+        when(commentRepository.findLatestFor(anyLong(), any())).thenReturn(List.of(sourceComment));
 
         var targetItemDto = itemService.getItemById(BOOKER_USER_ID, 1L);
 
@@ -291,6 +326,7 @@ class ItemServiceImplTest {
         sourceItemDto.setLastBooking(BookingMapper.toBookingShortDto(lastBooking));
 
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(sourceItem));
+        when(commentRepository.findLatestFor(anyLong(), any())).thenReturn(List.of(sourceComment));
 
         var targetItemDto = itemService.getItemById(OWNER_USER_ID, 1L);
 
@@ -302,11 +338,7 @@ class ItemServiceImplTest {
         when(itemRepository.searchAvailable(anyString(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
-                    return new PageImpl<>(
-                            sourceItems,
-                            pageRequest,
-                            sourceItems.size()
-                    );
+                    return new SliceImpl<>(ItemMapper.toItemDto(sourceItems), pageRequest, false);
                 });
 
         var targetItems = itemService.searchItemByName(BOOKER_USER_ID, "text", 0, 20);
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.request;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,8 +18,11 @@ import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
 @Transactional
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class ItemRequestServiceImplIntegrationTest {
 
     @Autowired
@@ -69,6 +74,17 @@ class ItemRequestServiceImplIntegrationTest {
         ItemRequestServiceImplTest.checkResult(targetItemRequestDtos, sourceItemRequestDtos);
     }
 
+    @Test
+    void shouldNotCountRowsWhenGetAllRequests() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        itemRequestService.getAllRequests(users.get(1).getId(), 0, 1);
+
+        // запросы и вещи для них
+        assertThat(statistics.getQueryExecutionCount(), is(2L));
+    }
+
     private User makeUser(String name, String email) {
         User user = new User();
         user.setName(name);
@@ -6,8 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import ru.practicum.shareit.error.EntryNotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemMapper;
@@ -116,7 +116,7 @@ class ItemRequestServiceImplTest {
     @Test
     void shouldGetRequestsByOwner() {
 
-        when(itemRepository.findItemsFor(anyList())).thenReturn(items);
+        when(itemRepository.findItemsFor(anyList())).thenReturn(ItemMapper.toItemDto(items));
         when(itemRequestRepository.findAllByRequester_Id(anyLong(), any()))
                 .thenReturn(sourceItemRequests);
 
@@ -151,11 +151,7 @@ class ItemRequestServiceImplTest {
         when(itemRequestRepository.findAllByRequester_IdNot(anyLong(), any()))
                 .thenAnswer(invocationOnMock -> {
                     PageRequest pageRequest = invocationOnMock.getArgument(1, PageRequest.class);
-                    return new PageImpl<>(
-                            otherRequests,
-                            pageRequest,
-                            otherRequests.size()
-                    );
+                    return new SliceImpl<>(otherRequests, pageRequest, false);
                 });
 
         var targetItemRequestDtos = itemRequestService.getAllRequests(REQUESTER_USER_ID1, 0, 20);
@@ -171,7 +167,7 @@ class ItemRequestServiceImplTest {
         sourceItemRequestDto.setItems(ItemMapper.toItemDto(items));
 
         when(itemRepository.findAllByRequest_Id(anyLong()))
-                .thenReturn(items);
+                .thenReturn(ItemMapper.toItemDto(items));
         when(itemRequestRepository.findById(anyLong()))
                 .thenReturn(Optional.of(sourceItemRequest));
 
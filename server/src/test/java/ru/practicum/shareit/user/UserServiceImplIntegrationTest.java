@@ -4,6 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -11,6 +14,7 @@ import ru.practicum.shareit.user.model.User;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -76,6 +80,39 @@ class UserServiceImplIntegrationTest {
         assertThat(result, hasSize(0));
     }
 
+    @Test
+    void shouldRefreshBookingPointersOfOtherItemsWhenBookerDeleted() {
+        User owner = makeUser("The Owner", "owner@gmail.com");
+        User deletedBooker = makeUser("John Doe", "john.doe@gmail.com");
+        User otherBooker = makeUser("Will Smith", "will.smith@gmail.com");
+        Item item = new Item();
+        item.setName("thing");
+        item.setDescription("desc");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+        Booking sooner = makeBooking(item, deletedBooker, LocalDateTime.now().plusDays(1));
+        Booking later = makeBooking(item, otherBooker, LocalDateTime.now().plusDays(3));
+        item.setNextBooking(sooner);
+        em.flush();
+
+        userService.deleteUser(deletedBooker.getId());
+        em.refresh(item);
+
+        assertThat(item.getNextBooking().getId(), equalTo(later.getId()));
+    }
+
+    private Booking makeBooking(Item item, User booker, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+        em.persist(booking);
+        return booking;
+    }
+
     private User makeUser(String name, String desc) {
         User user = new User();
         user.setName(name);